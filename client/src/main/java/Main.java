@@ -12,7 +12,8 @@ public class Main {
             baseUrl = args[0];
         }
 
-        ServerFacade server = new ServerFacade(baseUrl);
+        // -Dchess.ws.binary=true switches the game connection to the binary protocol
+        ServerFacade server = new ServerFacade(baseUrl, Boolean.getBoolean("chess.ws.binary"));
         Repl repl = new Repl(server, baseUrl);
         repl.run();
     }
@@ -9,6 +9,7 @@ import ui.HttpCommunicator;
 import ui.ServerMessageObserver;
 import ui.WebSocketCommunicator;
 import websocket.commands.MakeMoveCommand;
+import websocket.commands.ResumeCommand;
 import websocket.commands.UserGameCommand;
 import websocket.messages.NotificationMessage;
 
@@ -18,9 +19,19 @@ public class ServerFacade {
     private final HttpCommunicator httpCommunicator;
     private WebSocketCommunicator wsCommunicator;
     private String authToken;
+    private final boolean binaryProtocol;
 
     public ServerFacade(String baseUrl) {
+        this(baseUrl, false);
+    }
+
+    /**
+     * @param binaryProtocol talk to the game server in the compact binary protocol rather than
+     *                       JSON text frames
+     */
+    public ServerFacade(String baseUrl, boolean binaryProtocol) {
         this.httpCommunicator = new HttpCommunicator(baseUrl);
+        this.binaryProtocol = binaryProtocol;
     }
 
     public void register(String username, String password, String email) throws ResponseException {
@@ -49,6 +60,10 @@ public class ServerFacade {
         return httpCommunicator.listGames();
     }
 
+    public GameData getGame(int gameID) throws ResponseException {
+        return httpCommunicator.getGame(gameID);
+    }
+
     public void connectAsPlayer(int gameID, String playerColor) {
         UserGameCommand connect = new UserGameCommand(
                 UserGameCommand.CommandType.CONNECT,
@@ -100,7 +115,29 @@ public class ServerFacade {
     }
 
     public void connectWebSocket(String baseUrl, ServerMessageObserver observer) {
-        wsCommunicator = new WebSocketCommunicator(baseUrl, observer);
+        wsCommunicator = new WebSocketCommunicator(baseUrl, observer, binaryProtocol, true);
+    }
+
+    /**
+     * Opens a fresh WebSocket after a drop and asks the server for only the messages missed
+     * since the last one received. The server sends a full board instead if too much was missed.
+     */
+    public void resumeGame(String baseUrl, ServerMessageObserver observer, int gameID) {
+        long lastSequence = 0;
+        if (wsCommunicator != null) {
+            lastSequence = wsCommunicator.getLastSequence();
+            wsCommunicator.close();
+        }
+        // Installed only once the resume is sent, so a failed attempt can be retried from the
+        // same sequence
+        var replacement = new WebSocketCommunicator(baseUrl, observer, binaryProtocol, true);
+        try {
+            replacement.sendCommand(new ResumeCommand(this.authToken, gameID, lastSequence));
+        } catch (RuntimeException e) {
+            replacement.close();
+            throw e;
+        }
+        wsCommunicator = replacement;
     }
 
     public void sendCommand(UserGameCommand command) {
@@ -9,11 +9,13 @@ import java.net.*;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class HttpCommunicator {
 
     private final String serverUrl;
     private String authToken = null;
+    private final Map<String, CachedResponse> responseCache = new ConcurrentHashMap<>();
 
     public HttpCommunicator(String url) {
         serverUrl = url;
@@ -42,6 +44,7 @@ public class HttpCommunicator {
         var path = "/session";
         this.makeRequest("DELETE", path, null, null);
         this.authToken = null;
+        responseCache.clear();
     }
 
     //CreateGame
@@ -59,6 +62,12 @@ public class HttpCommunicator {
         return gamesList.getGames();
     }
 
+    //Get a single game
+    public GameData getGame(int gameID) throws ResponseException {
+        var path = "/game/" + gameID;
+        return this.makeRequest("GET", path, null, GameData.class);
+    }
+
     //Join Game
     public GameData playGame(int gameID, String playerColor) throws ResponseException {
         var path = "/game";
@@ -91,10 +100,25 @@ public class HttpCommunicator {
                 http.setRequestProperty("Authorization", this.authToken);
             }
 
+            boolean cacheable = "GET".equals(method);
+            CachedResponse cached = cacheable ? responseCache.get(path) : null;
+            if (cached != null) {
+                http.setRequestProperty("If-None-Match", cached.etag());
+            }
+
             writeBody(request, http);
             http.connect();
+            if (cached != null && http.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                return parse(cached.body(), responseClass);
+            }
             throwIfNotSuccessful(http);
-            return readBody(http, responseClass);
+
+            String body = readBody(http);
+            String etag = http.getHeaderField("ETag");
+            if (cacheable && etag != null && body != null) {
+                responseCache.put(path, new CachedResponse(etag, body));
+            }
+            return parse(body, responseClass);
         } catch (Exception ex) {
             throw new ResponseException(500, ex.getMessage());
         }
@@ -118,19 +142,26 @@ public class HttpCommunicator {
         }
     }
 
-    private static <T> T readBody(HttpURLConnection http, Class<T> responseClass) throws IOException {
-        T response = null;
+    private static String readBody(HttpURLConnection http) throws IOException {
+        String response = null;
         if (http.getContentLength() < 0) {
             try (InputStream respBody = http.getInputStream()) {
-                InputStreamReader reader = new InputStreamReader(respBody);
-                if (responseClass != null) {
-                    response = new Gson().fromJson(reader, responseClass);
-                }
+                response = new String(respBody.readAllBytes());
             }
         }
         return response;
     }
 
+    private static <T> T parse(String body, Class<T> responseClass) {
+        if (body == null || responseClass == null) {
+            return null;
+        }
+        return new Gson().fromJson(body, responseClass);
+    }
+
+    private record CachedResponse(String etag, String body) {
+    }
+
     private boolean isSuccessful(int status) {
         return status / 100 == 2;
     }
@@ -0,0 +1,144 @@
+package ui;
+
+import org.glassfish.tyrus.core.extension.ExtendedExtension;
+import org.glassfish.tyrus.core.frame.Frame;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Client side of the permessage-deflate WebSocket extension (RFC 7692), which the bundled
+ * Tyrus client does not ship. Jetty on the server negotiates it out of the box. Compression
+ * state is kept per connection in the extension context, with context takeover on both sides.
+ * A message that inflates past the size limit is refused before it is fully inflated, so a
+ * small compressed frame can't make the client allocate without bound.
+ */
+public class PerMessageDeflateExtension implements ExtendedExtension {
+    public static final String NAME = "permessage-deflate";
+
+    private static final byte[] TAIL = {0x00, 0x00, (byte) 0xFF, (byte) 0xFF};
+    private static final byte OPCODE_CONTINUATION = 0x0;
+    private static final String DEFLATER = "deflate.deflater";
+    private static final String INFLATER = "deflate.inflater";
+    private static final String INFLATING = "deflate.inflating";
+    private static final String INFLATED_BYTES = "deflate.inflatedBytes";
+
+    private final int maxMessageBytes;
+
+    /**
+     * @param maxMessageBytes the most a message may inflate to, across all of its frames
+     */
+    public PerMessageDeflateExtension(int maxMessageBytes) {
+        this.maxMessageBytes = maxMessageBytes;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public List<Parameter> getParameters() {
+        return List.of();
+    }
+
+    @Override
+    public Frame processOutgoing(ExtensionContext context, Frame frame) {
+        // Only whole data messages are compressed; anything else is sent as-is, which the RFC allows
+        if (frame.isControlFrame() || !frame.isFin() || frame.getOpcode() == OPCODE_CONTINUATION) {
+            return frame;
+        }
+        Deflater deflater = (Deflater) context.getProperties().computeIfAbsent(DEFLATER,
+                k -> new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+        byte[] compressed = deflate(deflater, frame.getPayloadData());
+        return Frame.builder(frame).rsv1(true).payloadData(compressed).payloadLength(compressed.length).build();
+    }
+
+    @Override
+    public Frame processIncoming(ExtensionContext context, Frame frame) {
+        if (frame.isControlFrame()) {
+            return frame;
+        }
+        var properties = context.getProperties();
+        boolean inflating = frame.getOpcode() == OPCODE_CONTINUATION
+                ? Boolean.TRUE.equals(properties.get(INFLATING))
+                : frame.isRsv1();
+        properties.put(INFLATING, inflating && !frame.isFin());
+        if (!inflating) {
+            return frame;
+        }
+
+        Inflater inflater = (Inflater) properties.computeIfAbsent(INFLATER, k -> new Inflater(true));
+        // Earlier frames of the same message count against the limit too
+        int alreadyInflated = frame.getOpcode() == OPCODE_CONTINUATION
+                ? (Integer) properties.getOrDefault(INFLATED_BYTES, 0)
+                : 0;
+        byte[] inflated = inflate(inflater, frame.getPayloadData(), frame.isFin(), maxMessageBytes - alreadyInflated);
+        properties.put(INFLATED_BYTES, frame.isFin() ? 0 : alreadyInflated + inflated.length);
+        return Frame.builder(frame).rsv1(false).payloadData(inflated).payloadLength(inflated.length).build();
+    }
+
+    @Override
+    public List<Parameter> onExtensionNegotiation(ExtensionContext context, List<Parameter> requestedParameters) {
+        return requestedParameters;
+    }
+
+    @Override
+    public void onHandshakeResponse(ExtensionContext context, List<Parameter> responseParameters) {
+    }
+
+    @Override
+    public void destroy(ExtensionContext context) {
+        if (context.getProperties().remove(DEFLATER) instanceof Deflater deflater) {
+            deflater.end();
+        }
+        if (context.getProperties().remove(INFLATER) instanceof Inflater inflater) {
+            inflater.end();
+        }
+    }
+
+    private static byte[] deflate(Deflater deflater, byte[] payload) {
+        deflater.setInput(payload);
+        var out = new ByteArrayOutputStream(Math.max(64, payload.length / 2));
+        byte[] buffer = new byte[1024];
+        int count;
+        while ((count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH)) > 0) {
+            out.write(buffer, 0, count);
+        }
+        byte[] compressed = out.toByteArray();
+        // A sync flush always ends with the empty-block tail, which the RFC says to strip
+        int length = compressed.length >= TAIL.length ? compressed.length - TAIL.length : compressed.length;
+        return Arrays.copyOf(compressed, length);
+    }
+
+    private static byte[] inflate(Inflater inflater, byte[] payload, boolean last, int limit) {
+        var out = new ByteArrayOutputStream(Math.min(payload.length * 4, Math.max(0, limit)));
+        byte[] buffer = new byte[4096];
+        try {
+            inflater.setInput(payload);
+            drain(inflater, buffer, out, limit);
+            if (last) {
+                inflater.setInput(TAIL);
+                drain(inflater, buffer, out, limit);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Invalid compressed WebSocket frame", e);
+        }
+        return out.toByteArray();
+    }
+
+    private static void drain(Inflater inflater, byte[] buffer, ByteArrayOutputStream out, int limit)
+            throws DataFormatException {
+        int count;
+        while ((count = inflater.inflate(buffer)) > 0) {
+            if (out.size() + count > limit) {
+                throw new IllegalStateException("Compressed WebSocket message inflates past the size limit");
+            }
+            out.write(buffer, 0, count);
+        }
+    }
+}
@@ -18,6 +18,8 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 public class Repl implements ServerMessageObserver {
+    private static final int RECONNECT_ATTEMPTS = 5;
+    private static final long RECONNECT_DELAY_MILLIS = 1_000;
 
     private enum ReplState {
         PRE_LOGIN,
@@ -29,7 +31,8 @@ public class Repl implements ServerMessageObserver {
     private final String baseUrl;
     private ReplState state;
     private final Scanner scanner;
-    private String currentGameID;
+    // Also read by the reconnect thread
+    private volatile String currentGameID;
     private String currentPlayerColor;
     private ChessGame game;
 
@@ -91,6 +94,38 @@ public class Repl implements ServerMessageObserver {
         }
     }
 
+    /**
+     * Reconnects after the connection drops. In a game, the server is asked for just the
+     * messages missed meanwhile, so the board picks up where it left off.
+     */
+    @Override
+    public void connectionLost() {
+        String gameID = currentGameID;
+        System.out.println("Connection to the server lost, reconnecting...");
+        // Not on the closing connection's own thread, which must not block on a new handshake
+        Thread reconnect = new Thread(() -> {
+            for (int attempt = 1; attempt <= RECONNECT_ATTEMPTS; attempt++) {
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS * attempt);
+                    if (gameID != null) {
+                        server.resumeGame(baseUrl, this, Integer.parseInt(gameID));
+                    } else {
+                        server.connectWebSocket(baseUrl, this);
+                    }
+                    System.out.println("Reconnected.");
+                    return;
+                } catch (InterruptedException e) {
+                    return;
+                } catch (RuntimeException e) {
+                    System.out.println("Reconnect attempt " + attempt + " failed: " + e.getMessage());
+                }
+            }
+            System.out.println("Could not reconnect to the server.");
+        }, "reconnect");
+        reconnect.setDaemon(true);
+        reconnect.start();
+    }
+
     private boolean handlePreLogin() {
         System.out.print("[PRE-LOGIN] >>> ");
         String[] input = scanner.nextLine().split(" ");
@@ -5,4 +5,10 @@ import websocket.messages.ServerMessage;
 public interface ServerMessageObserver {
 
     void notify(ServerMessage message);
+
+    /**
+     * Called when the server connection drops without the client closing it.
+     */
+    default void connectionLost() {
+    }
 }
\ No newline at end of file
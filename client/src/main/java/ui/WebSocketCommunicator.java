@@ -1,6 +1,7 @@
 package ui;
 
 import com.google.gson.Gson;
+import websocket.BinaryProtocol;
 import websocket.messages.ErrorMessage;
 import websocket.messages.LoadGameMessage;
 import websocket.messages.NotificationMessage;
@@ -10,19 +11,44 @@ import websocket.commands.UserGameCommand;
 import javax.websocket.*;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.List;
 
 @ClientEndpoint
 public class WebSocketCommunicator extends Endpoint {
+    // Far above any game message; a board is a few kilobytes of JSON
+    public static final int MAX_MESSAGE_BYTES = 1 << 20;
+
     private Session session;
     private final ServerMessageObserver observer;
     private final Gson gson = new Gson();
+    private volatile long lastSequence = 0;
+    private volatile boolean closing;
+
+    private final boolean binary;
 
     public WebSocketCommunicator(String baseUrl, ServerMessageObserver observer) {
+        this(baseUrl, observer, false, true);
+    }
+
+    /**
+     * @param binary   use the compact binary protocol instead of JSON text frames
+     * @param compress offer permessage-deflate so the server compresses every frame
+     */
+    public WebSocketCommunicator(String baseUrl, ServerMessageObserver observer, boolean binary, boolean compress) {
         this.observer = observer;
+        this.binary = binary;
         try {
             String wsUrl = baseUrl.replace("http", "ws") + "/ws";
+            if (binary) {
+                wsUrl += "?" + BinaryProtocol.FORMAT_PARAMETER + "=" + BinaryProtocol.BINARY_FORMAT;
+            }
+            List<Extension> extensions = compress
+                    ? List.of(new PerMessageDeflateExtension(MAX_MESSAGE_BYTES))
+                    : List.of();
+            ClientEndpointConfig config = ClientEndpointConfig.Builder.create().extensions(extensions).build();
             WebSocketContainer container = ContainerProvider.getWebSocketContainer();
-            container.connectToServer(this, new URI(wsUrl));
+            container.connectToServer(this, config, new URI(wsUrl));
         } catch (Exception ex) {
             throw new RuntimeException("Failed to connect to WebSocket", ex);
         }
@@ -31,34 +57,55 @@ public class WebSocketCommunicator extends Endpoint {
     @Override
     public void onOpen(Session session, EndpointConfig endpointConfig) {
         this.session = session;
+        session.setMaxTextMessageBufferSize(MAX_MESSAGE_BYTES);
+        session.setMaxBinaryMessageBufferSize(MAX_MESSAGE_BYTES);
         session.addMessageHandler(String.class, this::handleMessage);
+        session.addMessageHandler(ByteBuffer.class, this::handleBinaryMessage);
         System.out.println("WebSocket connected successfully.");
     }
 
+    @Override
+    public void onClose(Session session, CloseReason closeReason) {
+        if (!closing) {
+            observer.connectionLost();
+        }
+    }
+
     private void handleMessage(String message) {
         ServerMessage baseMessage = gson.fromJson(message, ServerMessage.class);
         switch (baseMessage.getServerMessageType()) {
-            case NOTIFICATION -> {
-                NotificationMessage notif = gson.fromJson(message, NotificationMessage.class);
-                observer.notify(notif);
-            }
-            case ERROR -> {
-                ErrorMessage err = gson.fromJson(message, ErrorMessage.class);
-                observer.notify(err);
-            }
-            case LOAD_GAME -> {
-                LoadGameMessage load = gson.fromJson(message, LoadGameMessage.class);
-                observer.notify(load);
-            }
+            case NOTIFICATION -> deliver(gson.fromJson(message, NotificationMessage.class));
+            case ERROR -> deliver(gson.fromJson(message, ErrorMessage.class));
+            case LOAD_GAME -> deliver(gson.fromJson(message, LoadGameMessage.class));
             default -> System.out.println(" unknown message type");
         }
     }
 
+    private void handleBinaryMessage(ByteBuffer buffer) {
+        byte[] data = new byte[buffer.remaining()];
+        buffer.get(data);
+        deliver(BinaryProtocol.decodeServerMessage(data, 0, data.length));
+    }
+
+    private void deliver(ServerMessage message) {
+        if (message.getSequence() != null) {
+            lastSequence = message.getSequence();
+        }
+        observer.notify(message);
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+
     public void sendCommand(UserGameCommand command) {
         if (session != null && session.isOpen()) {
             try {
-                String jsonCommand = gson.toJson(command);
-                session.getBasicRemote().sendText(jsonCommand);
+                if (binary) {
+                    session.getBasicRemote().sendBinary(ByteBuffer.wrap(BinaryProtocol.encode(command)));
+                } else {
+                    session.getBasicRemote().sendText(gson.toJson(command));
+                }
             } catch (IOException ex) {
                 throw new RuntimeException("Failed to send command", ex);
             }
@@ -68,6 +115,7 @@ public class WebSocketCommunicator extends Endpoint {
     }
 
     public void close() {
+        closing = true;
         if (session != null) {
             try {
                 session.close();
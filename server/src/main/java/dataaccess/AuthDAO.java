@@ -3,7 +3,22 @@ import model.AuthData;
 
 public interface AuthDAO {
     void createAuth(AuthData auth) throws DataAccessException;
+
+    /**
+     * Returns the token's data, or null if there is no such token or it has expired.
+     */
     AuthData getAuth(String authToken) throws DataAccessException;
     void deleteAuth(String authToken) throws DataAccessException;
+
+    /**
+     * Deletes every token belonging to {@code username}, signing the user out everywhere.
+     */
+    void deleteAllAuth(String username) throws DataAccessException;
+
+    /**
+     * Deletes up to {@code limit} tokens that expired at or before {@code now} and returns how
+     * many went, so a purge can work through a large backlog in short batches.
+     */
+    int deleteExpired(long now, int limit) throws DataAccessException;
     void clear() throws DataAccessException;
 }
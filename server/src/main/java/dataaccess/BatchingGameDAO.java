@@ -0,0 +1,219 @@
+package dataaccess;
+
+import chess.ChessGame;
+import model.GameData;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps a GameDAO and groups versioned game updates from concurrent callers into shared
+ * commits. A single writer thread takes the first pending update, waits up to the batch
+ * window for more, and hands them all to {@link GameDAO#updateGamesIfUnchanged} at once, so a
+ * busy server pays for one transaction per batch instead of one per move. Each caller gets a
+ * future that completes once its write is committed; the blocking
+ * {@link #updateGameIfUnchanged} simply waits on it, so moves are still only broadcast after
+ * they are durable. Everything else goes straight to the wrapped DAO.
+ */
+public class BatchingGameDAO implements GameDAO, AutoCloseable {
+    public static final int DEFAULT_WINDOW_MILLIS = 2;
+    public static final int DEFAULT_MAX_BATCH = 64;
+
+    private final GameDAO delegate;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final LinkedBlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    private record Pending(GameData game, CompletableFuture<Boolean> result) {
+    }
+
+    public BatchingGameDAO(GameDAO delegate) {
+        this(delegate, DEFAULT_WINDOW_MILLIS, DEFAULT_MAX_BATCH);
+    }
+
+    /**
+     * @param windowMillis how long the writer waits for more updates after the first one
+     *                     arrives; 0 sends whatever queued up while the last batch was written
+     */
+    public BatchingGameDAO(GameDAO delegate, int windowMillis, int maxBatch) {
+        this.delegate = delegate;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.maxBatch = Math.max(1, maxBatch);
+        this.writer = new Thread(this::writeLoop, "game-write-batcher");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues a versioned update. The future completes with the same result
+     * {@link GameDAO#updateGameIfUnchanged} would give, or exceptionally with a
+     * DataAccessException if the batch could not be written.
+     */
+    public CompletableFuture<Boolean> updateGameIfUnchangedAsync(GameData game) {
+        var pending = new Pending(game, new CompletableFuture<>());
+        // Checked and queued under the lock so nothing can slip in after the writer's last drain
+        synchronized (queue) {
+            if (closed) {
+                return CompletableFuture.failedFuture(
+                        new DataAccessException("Service unavailable: game writer is shut down"));
+            }
+            queue.add(pending);
+        }
+        return pending.result();
+    }
+
+    @Override
+    public boolean updateGameIfUnchanged(GameData game) throws DataAccessException {
+        try {
+            return updateGameIfUnchangedAsync(game).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof DataAccessException cause) {
+                throw cause;
+            }
+            throw new DataAccessException("Error updating game: " + e.getCause());
+        }
+    }
+
+    @Override
+    public void createGame(GameData game) throws DataAccessException {
+        delegate.createGame(game);
+    }
+
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException {
+        return delegate.getGame(gameID);
+    }
+
+    @Override
+    public List<GameData> listGames() throws DataAccessException {
+        return delegate.listGames();
+    }
+
+    @Override
+    public String epoch() {
+        return delegate.epoch();
+    }
+
+    @Override
+    public GameListVersion listVersion() throws DataAccessException {
+        return delegate.listVersion();
+    }
+
+    @Override
+    public void updateGame(GameData game) throws DataAccessException {
+        delegate.updateGame(game);
+    }
+
+    @Override
+    public boolean[] updateGamesIfUnchanged(List<GameData> games) throws DataAccessException {
+        return delegate.updateGamesIfUnchanged(games);
+    }
+
+    @Override
+    public int highestGameID() throws DataAccessException {
+        return delegate.highestGameID();
+    }
+
+    @Override
+    public int nextGameID() throws DataAccessException {
+        return delegate.nextGameID();
+    }
+
+    @Override
+    public int archiveFinishedGames(long finishedBefore, int limit) throws DataAccessException {
+        return delegate.archiveFinishedGames(finishedBefore, limit);
+    }
+
+    @Override
+    public boolean claimSeat(int gameID, ChessGame.TeamColor color, String username) throws DataAccessException {
+        return delegate.claimSeat(gameID, color, username);
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        delegate.clear();
+    }
+
+    /**
+     * Writes whatever is still queued and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        synchronized (queue) {
+            closed = true;
+        }
+        writer.interrupt();
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        var batch = new ArrayList<Pending>(maxBatch);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+                queue.drainTo(batch, maxBatch - batch.size());
+                while (batch.size() < maxBatch && !closed) {
+                    Pending next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // close() wakes the writer; drain what is left before stopping
+                queue.drainTo(batch, maxBatch - batch.size());
+            }
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        var games = new ArrayList<GameData>(batch.size());
+        for (Pending pending : batch) {
+            games.add(pending.game());
+        }
+        boolean[] results;
+        try {
+            results = delegate.updateGamesIfUnchanged(games);
+        } catch (DataAccessException | RuntimeException e) {
+            for (Pending pending : batch) {
+                pending.result().completeExceptionally(e);
+            }
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            Pending pending = batch.get(i);
+            if (results[i]) {
+                pending.result().complete(true);
+                continue;
+            }
+            // A batch only says the write missed. Trying it again alone gives the answer an
+            // unbatched write would: false for a lost race, or the store's error for a game
+            // that is gone or archived, which retrying can never fix.
+            try {
+                pending.result().complete(delegate.updateGameIfUnchanged(pending.game()));
+            } catch (DataAccessException | RuntimeException e) {
+                pending.result().completeExceptionally(e);
+            }
+        }
+    }
+}
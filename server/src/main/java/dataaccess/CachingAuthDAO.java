@@ -0,0 +1,138 @@
+package dataaccess;
+
+import model.AuthData;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded, concurrent cache of auth tokens in front of another AuthDAO. Hits (and misses,
+ * for a shorter time) are answered from memory so token validation on the request path is
+ * a hash lookup instead of a database round trip. Entries are dropped on deleteAuth,
+ * deleteAllAuth and clear, and never outlive the token they hold. Those drops only reach this
+ * node's cache: a logout on another node is seen here once the entry expires.
+ */
+public class CachingAuthDAO implements AuthDAO {
+    public static final long DEFAULT_TTL_MILLIS = 60_000;
+    public static final long DEFAULT_NEGATIVE_TTL_MILLIS = 5_000;
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    private final AuthDAO delegate;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+    private final int maxEntries;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<String, Entry> cache = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public CachingAuthDAO(AuthDAO delegate) {
+        this(delegate, DEFAULT_TTL_MILLIS, DEFAULT_NEGATIVE_TTL_MILLIS, DEFAULT_MAX_ENTRIES);
+    }
+
+    public CachingAuthDAO(AuthDAO delegate, long ttlMillis, long negativeTtlMillis, int maxEntries) {
+        this(delegate, ttlMillis, negativeTtlMillis, maxEntries, System::currentTimeMillis);
+    }
+
+    CachingAuthDAO(AuthDAO delegate, long ttlMillis, long negativeTtlMillis, int maxEntries, LongSupplier clock) {
+        this.delegate = delegate;
+        this.ttlMillis = ttlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    @Override
+    public void createAuth(AuthData auth) throws DataAccessException {
+        delegate.createAuth(auth);
+        put(auth.authToken(), auth, ttlMillis);
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) throws DataAccessException {
+        if (authToken == null) {
+            return null;
+        }
+        Entry entry = cache.get(authToken);
+        if (entry != null) {
+            if (entry.expiresAt() > clock.getAsLong()) {
+                return entry.auth();
+            }
+            cache.remove(authToken, entry);
+        }
+
+        // A delete that races with this read must not be undone by caching what we just loaded.
+        // Checked again after the put, since the delete may have come between check and put.
+        long generation = invalidations.get();
+        AuthData auth = delegate.getAuth(authToken);
+        if (generation == invalidations.get()) {
+            Entry cached = put(authToken, auth, auth == null ? negativeTtlMillis : ttlMillis);
+            if (cached != null && generation != invalidations.get()) {
+                cache.remove(authToken, cached);
+            }
+        }
+        return auth;
+    }
+
+    @Override
+    public void deleteAuth(String authToken) throws DataAccessException {
+        delegate.deleteAuth(authToken);
+        invalidations.incrementAndGet();
+        cache.remove(authToken);
+    }
+
+    @Override
+    public void deleteAllAuth(String username) throws DataAccessException {
+        delegate.deleteAllAuth(username);
+        invalidations.incrementAndGet();
+        cache.values().removeIf(entry -> entry.auth() != null && entry.auth().username().equals(username));
+    }
+
+    @Override
+    public int deleteExpired(long now, int limit) throws DataAccessException {
+        // Cached entries already stop at their token's expiry, so there is nothing to drop here
+        return delegate.deleteExpired(now, limit);
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        delegate.clear();
+        invalidations.incrementAndGet();
+        cache.clear();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    private Entry put(String authToken, AuthData auth, long ttl) {
+        if (ttl <= 0) {
+            return null;
+        }
+        if (cache.size() >= maxEntries && !cache.containsKey(authToken)) {
+            evict();
+        }
+        long expiresAt = clock.getAsLong() + ttl;
+        if (auth != null && auth.expiresAt() > 0) {
+            expiresAt = Math.min(expiresAt, auth.expiresAt());
+        }
+        var entry = new Entry(auth, expiresAt);
+        cache.put(authToken, entry);
+        return entry;
+    }
+
+    // Only runs when the cache is full: drop expired entries first, then arbitrary ones until there is room
+    private void evict() {
+        long now = clock.getAsLong();
+        cache.values().removeIf(entry -> entry.expiresAt() <= now);
+        Iterator<String> keys = cache.keySet().iterator();
+        while (cache.size() >= maxEntries && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private record Entry(AuthData auth, long expiresAt) {
+    }
+}
@@ -0,0 +1,29 @@
+package dataaccess;
+
+import metrics.MetricsRegistry;
+import profiling.DaoCallEvent;
+
+final class DaoMetrics {
+    private DaoMetrics() {
+    }
+
+    /**
+     * Starts timing a call for the flight recorder; pass the result to {@link #record}.
+     */
+    static DaoCallEvent begin() {
+        DaoCallEvent call = new DaoCallEvent();
+        call.begin();
+        return call;
+    }
+
+    static void record(String dao, String operation, long startNanos, DaoCallEvent call) {
+        MetricsRegistry.global().histogram("chess_dao_seconds", "Time spent in data access calls",
+                "dao", dao, "op", operation).recordSince(startNanos);
+        call.end();
+        if (call.shouldCommit()) {
+            call.dao = dao;
+            call.operation = operation;
+            call.commit();
+        }
+    }
+}
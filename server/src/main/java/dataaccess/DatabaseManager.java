@@ -1,19 +1,49 @@
 package dataaccess;
 
+import metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.sql.*;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class DatabaseManager {
+    private static final Logger log = LoggerFactory.getLogger(DatabaseManager.class);
     private static final String DATABASE_NAME;
     private static final String USER;
     private static final String PASSWORD;
     private static final String CONNECTION_URL;
+    private static final SqlDialect DIALECT;
+
+    private static volatile Semaphore connectionPermits = null;
+    private static volatile long permitTimeoutMillis = 0;
+    private static volatile boolean schemaReady = false;
+    private static volatile List<String> replicaUrls = List.of();
+    private static final AtomicInteger nextReplica = new AtomicInteger();
+    // Connection of the transaction the current thread is running, if any
+    private static final ThreadLocal<Connection> TRANSACTION = new ThreadLocal<>();
 
     /*
-     * Load the database information for the db.properties file.
+     * Use the database named by -Dchess.db.url if there is one, otherwise load the MySQL
+     * server's details from the db.properties file.
      */
     static {
-        try {
+        String url = System.getProperty("chess.db.url");
+        if (url != null && !url.isBlank()) {
+            DIALECT = SqlDialect.forUrl(url.trim());
+            CONNECTION_URL = DIALECT.connectionUrl(url.trim());
+            DATABASE_NAME = null;
+            USER = System.getProperty("chess.db.user", "");
+            PASSWORD = System.getProperty("chess.db.password", "");
+        } else {
+            DIALECT = SqlDialect.MYSQL;
             try (var propStream = Thread.currentThread().getContextClassLoader().getResourceAsStream("db.properties")) {
                 if (propStream == null) {
                     throw new Exception("Unable to load db.properties");
@@ -27,27 +57,83 @@ public class DatabaseManager {
                 var host = props.getProperty("db.host");
                 var port = Integer.parseInt(props.getProperty("db.port"));
                 CONNECTION_URL = String.format("jdbc:mysql://%s:%d", host, port);
+            } catch (Exception ex) {
+                throw new RuntimeException("unable to process db.properties. " + ex.getMessage());
             }
-        } catch (Exception ex) {
-            throw new RuntimeException("unable to process db.properties. " + ex.getMessage());
         }
     }
 
+
     /**
      * Creates the database if it does not already exist.
      */
     static void createDatabase() throws DataAccessException {
-        try {
-            var statement = "CREATE DATABASE IF NOT EXISTS " + DATABASE_NAME;
-            var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
-            try (var preparedStatement = conn.prepareStatement(statement)) {
-                preparedStatement.executeUpdate();
-            }
+        var statement = "CREATE DATABASE IF NOT EXISTS " + DATABASE_NAME;
+        try (var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
+             var preparedStatement = conn.prepareStatement(statement)) {
+            preparedStatement.executeUpdate();
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
         }
     }
 
+    /**
+     * Creates the database if needed and brings its tables up to the latest version in
+     * {@link SchemaMigrations}. Every SQL DAO calls this, but the work is only done by the
+     * first call in the process.
+     */
+    static void ensureSchema() throws DataAccessException {
+        if (schemaReady) {
+            return;
+        }
+        synchronized (DatabaseManager.class) {
+            if (schemaReady) {
+                return;
+            }
+            if (DIALECT.createsDatabase()) {
+                createDatabase();
+            }
+            try (var conn = getConnection()) {
+                SchemaMigrations.migrate(conn, DIALECT);
+            } catch (SQLException ex) {
+                throw new DataAccessException(String.format("Unable to configure database: %s", ex.getMessage()));
+            }
+            schemaReady = true;
+        }
+    }
+
+    public interface Work {
+        void run() throws DataAccessException;
+    }
+
+    /**
+     * Runs {@code work} in one transaction: every DAO call it makes on this thread shares a
+     * single connection, and all of it is committed together or rolled back on failure.
+     * Nested calls join the outer transaction. DDL such as TRUNCATE commits implicitly in
+     * MySQL, so work run this way must stick to ordinary statements.
+     */
+    public static void inTransaction(Work work) throws DataAccessException {
+        if (TRANSACTION.get() != null) {
+            work.run();
+            return;
+        }
+        try (var conn = getConnection()) {
+            conn.setAutoCommit(false);
+            TRANSACTION.set(conn);
+            try {
+                work.run();
+                conn.commit();
+            } catch (DataAccessException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                TRANSACTION.remove();
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error running transaction: " + e.getMessage());
+        }
+    }
+
     /**
      * Create a connection to the database and sets the catalog based upon the
      * properties specified in db.properties. Connections to the database should
@@ -61,15 +147,136 @@ public class DatabaseManager {
      * </code>
      */
     static Connection getConnection() throws DataAccessException {
+        Connection transaction = TRANSACTION.get();
+        if (transaction != null) {
+            return sharing(transaction);
+        }
+        return open(null);
+    }
+
+    /**
+     * Connection for a read that can tolerate replication lag. It goes to one of the read
+     * replicas, in turn, when the current request allows it (see {@link ReadRouting}), and to
+     * the primary otherwise or when the replica cannot be reached.
+     */
+    static Connection getReadConnection() throws DataAccessException {
+        List<String> replicas = replicaUrls;
+        if (replicas.isEmpty() || TRANSACTION.get() != null || !ReadRouting.replicaAllowed()) {
+            return getConnection();
+        }
+        return open(replicas.get(Math.floorMod(nextReplica.getAndIncrement(), replicas.size())));
+    }
+
+    /**
+     * Sets the read replicas of the primary database: JDBC URLs reached with the same user and
+     * password. An empty list sends every read to the primary.
+     */
+    public static void setReadReplicas(List<String> urls) {
+        replicaUrls = urls.stream().map(String::trim).filter(url -> !url.isEmpty())
+                .map(DIALECT::connectionUrl).toList();
+    }
+
+    // replicaUrl is null for the primary
+    private static Connection open(String replicaUrl) throws DataAccessException {
+        Semaphore permits = connectionPermits;
+        if (permits != null) {
+            acquire(permits);
+        }
+        try {
+            Connection conn = null;
+            if (replicaUrl != null) {
+                try {
+                    conn = openConnection(replicaUrl);
+                } catch (DataAccessException e) {
+                    log.warn("read replica unavailable, reading from primary: {}", e.getMessage());
+                }
+            }
+            if (conn == null) {
+                conn = openConnection(CONNECTION_URL);
+            }
+            return permits == null ? conn : releasingOnClose(conn, permits);
+        } catch (DataAccessException | RuntimeException e) {
+            if (permits != null) {
+                permits.release();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Caps how many connections may be open at once. With virtual threads there is no
+     * thread pool to bound concurrency any more, so this keeps thousands of parked requests
+     * from all opening a connection to MySQL at the same time. A limit of 0 removes the cap.
+     */
+    public static void setConnectionLimit(int maxConnections, long timeoutMillis) {
+        permitTimeoutMillis = timeoutMillis;
+        connectionPermits = maxConnections > 0 ? new Semaphore(maxConnections, true) : null;
+    }
+
+    private static Connection openConnection(String url) throws DataAccessException {
         try {
-            var conn = DriverManager.getConnection(CONNECTION_URL, USER, PASSWORD);
-            conn.setCatalog(DATABASE_NAME);
+            var conn = DriverManager.getConnection(url, USER, PASSWORD);
+            if (DATABASE_NAME != null) {
+                conn.setCatalog(DATABASE_NAME);
+            }
             return conn;
         } catch (SQLException e) {
             throw new DataAccessException(e.getMessage());
         }
     }
 
+    private static void acquire(Semaphore permits) throws DataAccessException {
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(permitTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                MetricsRegistry.global().counter("chess_db_permit_timeouts_total",
+                        "Requests turned away because every database connection was in use").increment();
+                throw new DataAccessException("Service unavailable: database is busy");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Service unavailable: interrupted waiting for database");
+        } finally {
+            MetricsRegistry.global().histogram("chess_db_permit_wait_seconds",
+                    "Time spent waiting for a free database connection").recordSince(start);
+        }
+    }
+
+    private static Connection releasingOnClose(Connection conn, Semaphore permits) {
+        var released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close") && released.compareAndSet(false, true)) {
+                        try {
+                            conn.close();
+                        } finally {
+                            permits.release();
+                        }
+                        return null;
+                    }
+                    try {
+                        return method.invoke(conn, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    // The transaction owns the connection, so closing this view of it does nothing
+    private static Connection sharing(Connection conn) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close")) {
+                        return null;
+                    }
+                    try {
+                        return method.invoke(conn, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
     static int executeUpdate(String statement, Object... params) throws DataAccessException {
         try (var conn = DatabaseManager.getConnection()) {
             try (var ps = conn.prepareStatement(statement, Statement.RETURN_GENERATED_KEYS)) {
@@ -83,9 +290,10 @@ public class DatabaseManager {
                 }
                 ps.executeUpdate();
 
+                // H2 reports a table's primary key here even when nothing was generated
                 try (var rs = ps.getGeneratedKeys()) {
-                    if (rs.next()) {
-                        return rs.getInt(1);
+                    if (rs.next() && rs.getObject(1) instanceof Number key) {
+                        return key.intValue();
                     }
                 }
                 return 0;
@@ -94,17 +302,4 @@ public class DatabaseManager {
             throw new DataAccessException("Error executing update:" + e.getMessage());
         }
     }
-
-    static void configureDatabase(String[] createStatements) throws DataAccessException {
-        DatabaseManager.createDatabase();
-        try (var conn = DatabaseManager.getConnection()) {
-            for (var statement : createStatements) {
-                try (var preparedStatement = conn.prepareStatement(statement)) {
-                    preparedStatement.executeUpdate();
-                }
-            }
-        } catch (SQLException ex) {
-            throw new DataAccessException(String.format("Unable to configure database: %s", ex.getMessage()));
-        }
-    }
 }
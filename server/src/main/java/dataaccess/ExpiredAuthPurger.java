@@ -0,0 +1,74 @@
+package dataaccess;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Periodically deletes expired auth tokens so the auth table only holds live sessions.
+ * Deletes run in small batches, each its own statement, so a large backlog never holds locks
+ * on the table for long.
+ */
+public class ExpiredAuthPurger implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ExpiredAuthPurger.class);
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private final AuthDAO authDAO;
+    private final int batchSize;
+    private final LongSupplier clock;
+    private ScheduledExecutorService purger;
+
+    public ExpiredAuthPurger(AuthDAO authDAO) {
+        this(authDAO, DEFAULT_BATCH_SIZE, System::currentTimeMillis);
+    }
+
+    ExpiredAuthPurger(AuthDAO authDAO, int batchSize, LongSupplier clock) {
+        this.authDAO = authDAO;
+        this.batchSize = batchSize;
+        this.clock = clock;
+    }
+
+    /**
+     * Deletes every token expired by now and returns how many were removed.
+     */
+    public int purge() throws DataAccessException {
+        long now = clock.getAsLong();
+        int total = 0;
+        int deleted;
+        do {
+            deleted = authDAO.deleteExpired(now, batchSize);
+            total += deleted;
+        } while (deleted == batchSize);
+        return total;
+    }
+
+    public synchronized void start(long periodSeconds) {
+        if (purger != null || periodSeconds <= 0) {
+            return;
+        }
+        purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "auth-purger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        purger.scheduleWithFixedDelay(() -> {
+            try {
+                purge();
+            } catch (DataAccessException e) {
+                log.warn("could not purge expired tokens: {}", e.getMessage());
+            }
+        }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (purger != null) {
+            purger.shutdownNow();
+            purger = null;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package dataaccess;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Periodically moves games that have been over for a while out of the live game table, so
+ * the table the lobby and every move touch only holds games people may still play. Archived
+ * games stay readable through {@link GameDAO#getGame(int)}.
+ */
+public class GameArchiver implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(GameArchiver.class);
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private final GameDAO gameDAO;
+    private final long archiveAfterMillis;
+    private final int batchSize;
+    private final LongSupplier clock;
+    private ScheduledExecutorService archiver;
+
+    public GameArchiver(GameDAO gameDAO, long archiveAfterMillis) {
+        this(gameDAO, archiveAfterMillis, DEFAULT_BATCH_SIZE, System::currentTimeMillis);
+    }
+
+    GameArchiver(GameDAO gameDAO, long archiveAfterMillis, int batchSize, LongSupplier clock) {
+        this.gameDAO = gameDAO;
+        this.archiveAfterMillis = archiveAfterMillis;
+        this.batchSize = batchSize;
+        this.clock = clock;
+    }
+
+    /**
+     * Archives every game that finished at least the configured delay ago and returns how
+     * many were moved.
+     */
+    public int archive() throws DataAccessException {
+        long finishedBefore = clock.getAsLong() - archiveAfterMillis;
+        int total = 0;
+        int archived;
+        do {
+            archived = gameDAO.archiveFinishedGames(finishedBefore, batchSize);
+            total += archived;
+        } while (archived == batchSize);
+        return total;
+    }
+
+    public synchronized void start(long periodSeconds) {
+        if (archiver != null || periodSeconds <= 0) {
+            return;
+        }
+        archiver = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        archiver.scheduleWithFixedDelay(() -> {
+            try {
+                archive();
+            } catch (DataAccessException e) {
+                log.warn("could not archive finished games: {}", e.getMessage());
+            }
+        }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (archiver != null) {
+            archiver.shutdownNow();
+            archiver = null;
+        }
+    }
+}
@@ -1,4 +1,5 @@
 package dataaccess;
+import chess.ChessGame;
 import model.GameData;
 import java.util.List;
 
@@ -7,5 +8,81 @@ public interface GameDAO {
     GameData getGame(int gameID) throws DataAccessException;
     List<GameData> listGames() throws DataAccessException;
     void updateGame(GameData game) throws DataAccessException;
+
+    /**
+     * Writes the game only if its stored version still equals {@code game.version()}, and bumps
+     * the version. Returns false, writing nothing, if the game changed since it was read.
+     */
+    boolean updateGameIfUnchanged(GameData game) throws DataAccessException;
+
+    /**
+     * Runs {@link #updateGameIfUnchanged} for each game in order and returns each result. A game
+     * that no longer exists gets false instead of an exception. Stores that can commit several
+     * writes at once override this.
+     */
+    default boolean[] updateGamesIfUnchanged(List<GameData> games) throws DataAccessException {
+        boolean[] results = new boolean[games.size()];
+        for (int i = 0; i < results.length; i++) {
+            try {
+                results[i] = updateGameIfUnchanged(games.get(i));
+            } catch (DataAccessException e) {
+                if (getGame(games.get(i).gameID()) != null) {
+                    throw e;
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Names this store's lifetime, for stores whose game IDs and versions start over with the
+     * process, so tags handed out before a restart never match games created after it. Empty
+     * for stores that keep their games.
+     */
+    default String epoch() {
+        return "";
+    }
+
+    /**
+     * The fingerprint of {@link #listGames()}. Stores override this to read it without
+     * loading every game.
+     */
+    default GameListVersion listVersion() throws DataAccessException {
+        return GameListVersion.of(epoch(), listGames());
+    }
+
+    /**
+     * Highest gameID this store has ever held, archived games included, so new games never
+     * reuse an old ID.
+     */
+    default int highestGameID() throws DataAccessException {
+        int highest = 0;
+        for (GameData game : listGames()) {
+            highest = Math.max(highest, game.gameID());
+        }
+        return highest;
+    }
+
+    /**
+     * Reserves the ID for a new game: above {@link #highestGameID()}, and never handed out
+     * twice, even to different nodes sharing the store.
+     */
+    int nextGameID() throws DataAccessException;
+
+    /**
+     * Moves up to {@code limit} games that ended before {@code finishedBefore} out of the live
+     * store into an archive. Archived games drop out of {@link #listGames()} but
+     * {@link #getGame(int)} still finds them. Returns how many moved; stores without an
+     * archive keep every game live.
+     */
+    default int archiveFinishedGames(long finishedBefore, int limit) throws DataAccessException {
+        return 0;
+    }
+
+    /**
+     * Puts {@code username} in the given seat if it is empty. Returns false if the seat is
+     * already taken or the game does not exist.
+     */
+    boolean claimSeat(int gameID, ChessGame.TeamColor color, String username) throws DataAccessException;
     void clear() throws DataAccessException;
 }
@@ -0,0 +1,44 @@
+package dataaccess;
+
+import model.GameHistoryEvent;
+
+import java.util.List;
+
+/**
+ * Append-only log of every game's events, plus the latest snapshot of each game so rebuilding
+ * one only replays the events since.
+ */
+public interface GameEventDAO {
+    /**
+     * Sequence number of the game's last event, or 0 if it has none.
+     */
+    long lastSequence(int gameID) throws DataAccessException;
+
+    /**
+     * Appends events to the game's log, numbered from {@code afterSequence + 1}. Returns false,
+     * writing nothing, if the log already holds an event past {@code afterSequence}.
+     */
+    boolean append(int gameID, long afterSequence, List<GameHistoryEvent> events) throws DataAccessException;
+
+    /**
+     * The game's events after {@code afterSequence}, in order.
+     */
+    List<LoggedEvent> readGame(int gameID, long afterSequence) throws DataAccessException;
+
+    /**
+     * Up to {@code limit} events of any game after log position {@code afterPosition}, in log order.
+     */
+    List<LoggedEvent> readAll(long afterPosition, int limit) throws DataAccessException;
+
+    /**
+     * Replaces the game's stored snapshot.
+     */
+    void saveSnapshot(GameSnapshot snapshot) throws DataAccessException;
+
+    /**
+     * The game's latest snapshot, or null if it has none.
+     */
+    GameSnapshot latestSnapshot(int gameID) throws DataAccessException;
+
+    void clear() throws DataAccessException;
+}
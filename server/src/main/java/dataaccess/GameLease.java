@@ -0,0 +1,10 @@
+package dataaccess;
+
+/**
+ * Which server node currently owns a game, and until when (epoch millis).
+ */
+public record GameLease(int gameID, String owner, long expiresAt) {
+    public boolean isHeldBy(String node, long now) {
+        return owner.equals(node) && now < expiresAt;
+    }
+}
@@ -0,0 +1,29 @@
+package dataaccess;
+
+import model.GameData;
+
+import java.util.List;
+
+/**
+ * A fingerprint of the live games that a store can read without loading any boards. Every
+ * write bumps one game's version and game IDs are never reused, so it changes whenever
+ * {@link GameDAO#listGames()} would return something different. {@code epoch} names the
+ * store's lifetime for stores whose IDs and versions start over when the process does.
+ */
+public record GameListVersion(String epoch, int count, int highestID, long idSum, long versionSum) {
+    public static GameListVersion of(String epoch, List<GameData> games) {
+        int highestID = 0;
+        long idSum = 0;
+        long versionSum = 0;
+        for (GameData game : games) {
+            highestID = Math.max(highestID, game.gameID());
+            idSum += game.gameID();
+            versionSum += game.version();
+        }
+        return new GameListVersion(epoch, games.size(), highestID, idSum, versionSum);
+    }
+
+    public String tag() {
+        return "\"" + epoch + count + "-" + highestID + "-" + idSum + "-" + versionSum + "\"";
+    }
+}
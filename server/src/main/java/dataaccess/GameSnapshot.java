@@ -0,0 +1,9 @@
+package dataaccess;
+
+import model.GameData;
+
+/**
+ * A game as it stood after its first {@code sequence} events.
+ */
+public record GameSnapshot(int gameID, long sequence, GameData game) {
+}
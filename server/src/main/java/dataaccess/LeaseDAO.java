@@ -0,0 +1,13 @@
+package dataaccess;
+
+public interface LeaseDAO {
+    /**
+     * Takes or renews the lease on a game for {@code node} if it is free, expired, or already
+     * held by that node, and returns whoever holds it afterwards.
+     */
+    GameLease acquire(int gameID, String node, long now, long expiresAt) throws DataAccessException;
+
+    void release(int gameID, String node) throws DataAccessException;
+
+    void clear() throws DataAccessException;
+}
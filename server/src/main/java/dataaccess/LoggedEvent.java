@@ -0,0 +1,10 @@
+package dataaccess;
+
+import model.GameHistoryEvent;
+
+/**
+ * A game event as stored in the log. {@code sequence} numbers the game's own events from 1;
+ * {@code position} orders events across all games, for consumers that follow the whole log.
+ */
+public record LoggedEvent(long position, int gameID, long sequence, long createdAt, GameHistoryEvent event) {
+}
@@ -0,0 +1,441 @@
+package dataaccess;
+
+import chess.ChessGame;
+import model.GameData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import websocket.BinaryProtocol;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * GameDAO backed by append-only, memory-mapped segment files, for running without MySQL.
+ * Every write appends a full snapshot of the game; with the board packed into 32 bytes a
+ * record is well under a hundred bytes, so a write is a memory copy instead of a row
+ * rewrite. An in-memory index points at each game's latest record.
+ * <p>
+ * Records are {@code [payload length][CRC32 of payload][payload]}. On startup the segments
+ * are replayed in order and replay stops at the first record whose length or checksum is
+ * wrong, so a write torn by a crash is dropped rather than read back as garbage. Sealed
+ * segments that are mostly overwritten are compacted by copying their live records to the
+ * end of the log and deleting the file.
+ */
+public class MappedGameDAO implements GameDAO, AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(MappedGameDAO.class);
+    public static final int DEFAULT_SEGMENT_BYTES = 16 << 20;
+    static final double COMPACT_BELOW_LIVE_RATIO = 0.5;
+
+    private static final int HEADER_BYTES = 8;
+    private static final byte PUT = 1;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("games-(\\d+)\\.seg");
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final boolean syncWrites;
+    private final ConcurrentHashMap<Integer, Location> index = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final AtomicInteger lastGameID = new AtomicInteger();
+    private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong()) + "-";
+    // Written only while holding this object's lock
+    private Segment active;
+    private ScheduledExecutorService compactor;
+
+    private record Location(Segment segment, int offset, int length, int version) {
+    }
+
+    public MappedGameDAO(Path directory) throws DataAccessException {
+        this(directory, DEFAULT_SEGMENT_BYTES, false);
+    }
+
+    /**
+     * @param syncWrites force every record to disk before returning. Without it a write
+     *                   survives a process crash but not a power failure.
+     */
+    public MappedGameDAO(Path directory, int segmentBytes, boolean syncWrites) throws DataAccessException {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.syncWrites = syncWrites;
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new DataAccessException("Unable to open game store " + directory + ": " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void createGame(GameData game) throws DataAccessException {
+        if (index.containsKey(game.gameID())) {
+            throw new DataAccessException("Game ID already exists");
+        }
+        append(game, game.version());
+    }
+
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException {
+        Location location = index.get(gameID);
+        return location == null ? null : read(location);
+    }
+
+    @Override
+    public List<GameData> listGames() throws DataAccessException {
+        var games = new ArrayList<GameData>(index.size());
+        for (Location location : index.values()) {
+            games.add(read(location));
+        }
+        return games;
+    }
+
+    @Override
+    public String epoch() {
+        return epoch;
+    }
+
+    // The index holds every game's version, so no record has to be read
+    @Override
+    public GameListVersion listVersion() {
+        int count = 0;
+        int highestID = 0;
+        long idSum = 0;
+        long versionSum = 0;
+        for (var entry : index.entrySet()) {
+            count++;
+            highestID = Math.max(highestID, entry.getKey());
+            idSum += entry.getKey();
+            versionSum += entry.getValue().version();
+        }
+        return new GameListVersion(epoch, count, highestID, idSum, versionSum);
+    }
+
+    @Override
+    public synchronized void updateGame(GameData game) throws DataAccessException {
+        Location current = index.get(game.gameID());
+        if (current == null) {
+            throw new DataAccessException("Game not found");
+        }
+        append(game, current.version() + 1);
+    }
+
+    @Override
+    public synchronized boolean updateGameIfUnchanged(GameData game) throws DataAccessException {
+        Location current = index.get(game.gameID());
+        if (current == null) {
+            throw new DataAccessException("Game not found");
+        }
+        if (current.version() != game.version()) {
+            return false;
+        }
+        append(game, game.version() + 1);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean claimSeat(int gameID, ChessGame.TeamColor color, String username)
+            throws DataAccessException {
+        Location location = index.get(gameID);
+        if (location == null) {
+            return false;
+        }
+        GameData current = read(location);
+        boolean white = color == ChessGame.TeamColor.WHITE;
+        if ((white ? current.whiteUsername() : current.blackUsername()) != null) {
+            return false;
+        }
+        append(new GameData(gameID,
+                white ? username : current.whiteUsername(),
+                white ? current.blackUsername() : username,
+                current.gameName(), current.game()), current.version() + 1);
+        return true;
+    }
+
+    // Seeded from the stored games on first use; this store is never shared between nodes
+    @Override
+    public int nextGameID() throws DataAccessException {
+        if (lastGameID.get() == 0) {
+            lastGameID.compareAndSet(0, highestGameID());
+        }
+        return lastGameID.incrementAndGet();
+    }
+
+    @Override
+    public synchronized void clear() throws DataAccessException {
+        index.clear();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.delete();
+            }
+            segments.clear();
+            active = openSegment(1);
+        } catch (IOException e) {
+            throw new DataAccessException("Error clearing games: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rewrites the live records of sealed segments that are mostly dead and deletes them.
+     * Run periodically by {@link #startCompacting}; exposed for tests.
+     */
+    void compact() throws DataAccessException {
+        for (Segment segment : segments.values()) {
+            synchronized (this) {
+                if (segment == active || !segments.containsKey(segment.number)
+                        || segment.live >= segment.position * COMPACT_BELOW_LIVE_RATIO) {
+                    continue;
+                }
+                for (Location location : index.values()) {
+                    if (location.segment() == segment) {
+                        GameData game = read(location);
+                        append(game, location.version());
+                    }
+                }
+                segments.remove(segment.number);
+                try {
+                    segment.delete();
+                } catch (IOException e) {
+                    throw new DataAccessException("Error compacting games: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    public synchronized void startCompacting(long periodSeconds) {
+        if (compactor != null) {
+            return;
+        }
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-log-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(() -> {
+            try {
+                compact();
+            } catch (DataAccessException e) {
+                log.warn("game store compaction failed: {}", e.getMessage());
+            }
+        }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Number of segment files, for tests and monitoring.
+     */
+    int segmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (compactor != null) {
+            compactor.shutdownNow();
+            compactor = null;
+        }
+        for (Segment segment : segments.values()) {
+            segment.buffer.force();
+            segment.close();
+        }
+    }
+
+    private void recover() throws IOException {
+        var numbers = new ArrayList<Long>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    numbers.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        numbers.sort(null);
+        for (long number : numbers) {
+            Segment segment = openSegment(number);
+            replay(segment);
+            active = segment;
+        }
+        if (active == null) {
+            active = openSegment(1);
+        } else {
+            // Wipe whatever a torn write left behind so it can never be mistaken for a record
+            for (int i = active.position; i < active.capacity(); i++) {
+                active.buffer.put(i, (byte) 0);
+            }
+        }
+    }
+
+    private void replay(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int position = 0;
+        while (position + HEADER_BYTES <= segment.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + HEADER_BYTES + length > segment.capacity()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(position + HEADER_BYTES, payload);
+            if (checksum(payload) != buffer.getInt(position + 4)) {
+                log.warn("game store dropping damaged record at {}:{}", segment.path, position);
+                break;
+            }
+            try {
+                GameData game = decode(payload);
+                place(game.gameID(), new Location(segment, position, HEADER_BYTES + length, game.version()));
+            } catch (IOException e) {
+                log.warn("game store unreadable record at {}:{}", segment.path, position);
+                break;
+            }
+            position += HEADER_BYTES + length;
+        }
+        segment.position = position;
+    }
+
+    // Caller holds the lock
+    private void append(GameData game, int version) throws DataAccessException {
+        byte[] payload = encode(game, version);
+        int size = HEADER_BYTES + payload.length;
+        if (size > segmentBytes) {
+            throw new DataAccessException("Game record too large: " + game.gameID());
+        }
+        try {
+            if (active.position + size > active.capacity()) {
+                active.buffer.force();
+                active = openSegment(active.number + 1);
+            }
+        } catch (IOException e) {
+            throw new DataAccessException("Error writing game: " + e.getMessage());
+        }
+        int offset = active.position;
+        active.buffer.put(offset + HEADER_BYTES, payload);
+        active.buffer.putInt(offset + 4, checksum(payload));
+        // Length last, so a record only counts once everything before it is in place
+        active.buffer.putInt(offset, payload.length);
+        active.position += size;
+        if (syncWrites) {
+            active.buffer.force(offset, size);
+        }
+        place(game.gameID(), new Location(active, offset, size, version));
+    }
+
+    private void place(int gameID, Location location) {
+        Location previous = index.put(gameID, location);
+        location.segment().live += location.length();
+        if (previous != null) {
+            previous.segment().live -= previous.length();
+        }
+    }
+
+    private Segment openSegment(long number) throws IOException {
+        var segment = new Segment(number, directory.resolve(String.format("games-%06d.seg", number)), segmentBytes);
+        segments.put(number, segment);
+        return segment;
+    }
+
+    private static GameData read(Location location) throws DataAccessException {
+        byte[] payload = new byte[location.length() - HEADER_BYTES];
+        location.segment().buffer.get(location.offset() + HEADER_BYTES, payload);
+        try {
+            return decode(payload);
+        } catch (IOException e) {
+            throw new DataAccessException("Error reading game: " + e.getMessage());
+        }
+    }
+
+    private static byte[] encode(GameData game, int version) throws DataAccessException {
+        var bytes = new ByteArrayOutputStream(96);
+        try (var out = new DataOutputStream(bytes)) {
+            out.writeByte(PUT);
+            out.writeInt(game.gameID());
+            out.writeInt(version);
+            writeString(out, game.whiteUsername());
+            writeString(out, game.blackUsername());
+            writeString(out, game.gameName());
+            BinaryProtocol.writeGame(out, game.game());
+        } catch (IOException e) {
+            throw new DataAccessException("Error encoding game: " + e.getMessage());
+        }
+        return bytes.toByteArray();
+    }
+
+    private static GameData decode(byte[] payload) throws IOException {
+        try (var in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            if (in.readByte() != PUT) {
+                throw new IOException("unknown record type");
+            }
+            int gameID = in.readInt();
+            int version = in.readInt();
+            String white = readString(in);
+            String black = readString(in);
+            String name = readString(in);
+            return new GameData(gameID, white, black, name, BinaryProtocol.readGame(in), version);
+        }
+    }
+
+    private static int checksum(byte[] payload) {
+        var crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static final class Segment {
+        final long number;
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        // Both guarded by the DAO's lock
+        int position;
+        long live;
+
+        Segment(long number, Path path, int size) throws IOException {
+            this.number = number;
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, channel.size()));
+        }
+
+        int capacity() {
+            return buffer.capacity();
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Nothing left to release
+            }
+        }
+
+        // Readers still holding a Location keep using the mapping, which outlives the file
+        void delete() throws IOException {
+            close();
+            Files.deleteIfExists(path);
+        }
+    }
+}
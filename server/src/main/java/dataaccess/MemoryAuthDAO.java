@@ -2,14 +2,13 @@ package dataaccess;
 
 import model.AuthData;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class MemoryAuthDAO implements AuthDAO{
-    private final Map<String, AuthData> authTokenMap;
-    public MemoryAuthDAO() {
-        this.authTokenMap = new HashMap<>();
-    }
+    private final ConcurrentHashMap<String, AuthData> authTokenMap = new ConcurrentHashMap<>();
 
     @Override
     public void createAuth(AuthData auth) throws DataAccessException {
@@ -18,15 +17,45 @@ public class MemoryAuthDAO implements AuthDAO{
 
     @Override
     public AuthData getAuth(String authToken) throws DataAccessException {
-        return  authTokenMap.get(authToken);    }
+        AuthData auth = authTokenMap.get(authToken);
+        return auth == null || auth.isExpired(System.currentTimeMillis()) ? null : auth;
+    }
 
     @Override
     public void deleteAuth(String authToken) throws DataAccessException {
         authTokenMap.remove(authToken);
     }
 
+    @Override
+    public void deleteAllAuth(String username) throws DataAccessException {
+        authTokenMap.values().removeIf(auth -> auth.username().equals(username));
+    }
+
+    @Override
+    public int deleteExpired(long now, int limit) throws DataAccessException {
+        int deleted = 0;
+        Iterator<AuthData> auths = authTokenMap.values().iterator();
+        while (deleted < limit && auths.hasNext()) {
+            if (auths.next().isExpired(now)) {
+                auths.remove();
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
     @Override
     public void clear() throws DataAccessException {
         authTokenMap.clear();
     }
+
+    List<AuthData> values() {
+        return List.copyOf(authTokenMap.values());
+    }
+
+    void restore(Collection<AuthData> auths) {
+        for (AuthData auth : auths) {
+            authTokenMap.put(auth.authToken(), auth);
+        }
+    }
 }
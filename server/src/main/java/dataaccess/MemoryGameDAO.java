@@ -1,47 +1,152 @@
 package dataaccess;
 
+import chess.ChessGame;
 import model.GameData;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Games kept in a ConcurrentHashMap. Stored games are private copies: callers get their own
+ * copy of the board from every read, so a move applied to a game that then fails its
+ * version check never leaks into the stored state.
+ */
 public class MemoryGameDAO implements GameDAO{
-    private final Map<Integer, GameData> gameDataMap;
-
-    public MemoryGameDAO() {
-        this.gameDataMap = new HashMap<>();
-    }
+    private final ConcurrentHashMap<Integer, GameData> gameDataMap = new ConcurrentHashMap<>();
+    // Rebuilt lazily after a write, so listing an unchanged collection doesn't copy every game
+    private final AtomicReference<List<GameData>> snapshot = new AtomicReference<>();
+    // Bumped by every write, so a list built while a write ran is never left installed
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicInteger lastGameID = new AtomicInteger();
+    private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong()) + "-";
 
     @Override
     public void createGame(GameData game) throws DataAccessException {
-        if (gameDataMap.containsKey(game.gameID())) {
+        if (gameDataMap.putIfAbsent(game.gameID(), copyOf(game, game.version())) != null) {
             throw new DataAccessException("Game ID already exists");
         }
-        gameDataMap.put(game.gameID(), game);
+        invalidate();
     }
 
     @Override
     public GameData getGame(int gameID) throws DataAccessException {
-        return gameDataMap.get(gameID);
+        GameData game = gameDataMap.get(gameID);
+        return game == null ? null : copyOf(game, game.version());
     }
 
+    /**
+     * Returns a shared, read-only list of the games as of the last write.
+     */
     @Override
     public List<GameData> listGames() throws DataAccessException {
-        return new ArrayList<>(gameDataMap.values());
+        List<GameData> games = snapshot.get();
+        if (games == null) {
+            long stamp = writes.get();
+            var copies = new ArrayList<GameData>(gameDataMap.size());
+            for (GameData game : gameDataMap.values()) {
+                copies.add(copyOf(game, game.version()));
+            }
+            games = List.copyOf(copies);
+            // A write that bumped the stamp after we read it may have cleared the snapshot
+            // before we installed ours; take ours back out so the next read rebuilds
+            if (snapshot.compareAndSet(null, games) && writes.get() != stamp) {
+                snapshot.compareAndSet(games, null);
+            }
+        }
+        return games;
+    }
+
+    @Override
+    public String epoch() {
+        return epoch;
     }
 
     @Override
     public void updateGame(GameData game) throws DataAccessException {
-        if (!gameDataMap.containsKey(game.gameID())) {
+        GameData updated = gameDataMap.computeIfPresent(game.gameID(),
+                (id, current) -> copyOf(game, current.version() + 1));
+        if (updated == null) {
+            throw new DataAccessException("Game not found");
+        }
+        invalidate();
+    }
+
+    @Override
+    public boolean updateGameIfUnchanged(GameData game) throws DataAccessException {
+        var written = new boolean[1];
+        GameData stored = gameDataMap.computeIfPresent(game.gameID(), (id, current) -> {
+            if (current.version() != game.version()) {
+                return current;
+            }
+            written[0] = true;
+            return copyOf(game, game.version() + 1);
+        });
+        if (stored == null) {
             throw new DataAccessException("Game not found");
         }
-        gameDataMap.put(game.gameID(), game);
+        if (written[0]) {
+            invalidate();
+        }
+        return written[0];
+    }
+
+    @Override
+    public boolean claimSeat(int gameID, ChessGame.TeamColor color, String username) {
+        var claimed = new boolean[1];
+        gameDataMap.computeIfPresent(gameID, (id, current) -> {
+            boolean white = color == ChessGame.TeamColor.WHITE;
+            if ((white ? current.whiteUsername() : current.blackUsername()) != null) {
+                return current;
+            }
+            claimed[0] = true;
+            // The board is untouched, so the stored copy can be shared with the new record
+            return new GameData(gameID,
+                    white ? username : current.whiteUsername(),
+                    white ? current.blackUsername() : username,
+                    current.gameName(), current.game(), current.version() + 1);
+        });
+        if (claimed[0]) {
+            invalidate();
+        }
+        return claimed[0];
+    }
+
+    // Seeded from the stored games on first use; this store is never shared between nodes
+    @Override
+    public int nextGameID() throws DataAccessException {
+        if (lastGameID.get() == 0) {
+            lastGameID.compareAndSet(0, highestGameID());
+        }
+        return lastGameID.incrementAndGet();
     }
 
     @Override
     public void clear() throws DataAccessException {
         gameDataMap.clear();
+        invalidate();
+    }
+
+    private void invalidate() {
+        writes.incrementAndGet();
+        snapshot.set(null);
+    }
+
+    void restore(Collection<GameData> games) {
+        for (GameData game : games) {
+            gameDataMap.put(game.gameID(), copyOf(game, game.version()));
+        }
+        invalidate();
+    }
+
+    private static GameData copyOf(GameData game, int version) {
+        ChessGame chessGame = game.game() == null ? null : game.game().copy();
+        return new GameData(game.gameID(), game.whiteUsername(), game.blackUsername(), game.gameName(),
+                chessGame, version);
     }
 }
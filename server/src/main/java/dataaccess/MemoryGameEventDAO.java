@@ -0,0 +1,77 @@
+package dataaccess;
+
+import model.GameData;
+import model.GameHistoryEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Event log held in lists. One lock covers every game so log positions come out in the same
+ * order as the appends; appends are short, so the lock is never held for long.
+ */
+public class MemoryGameEventDAO implements GameEventDAO {
+    private final List<LoggedEvent> log = new ArrayList<>();
+    private final Map<Integer, List<LoggedEvent>> byGame = new HashMap<>();
+    private final Map<Integer, GameSnapshot> snapshots = new HashMap<>();
+
+    @Override
+    public synchronized long lastSequence(int gameID) {
+        List<LoggedEvent> events = byGame.get(gameID);
+        return events == null ? 0 : events.size();
+    }
+
+    @Override
+    public synchronized boolean append(int gameID, long afterSequence, List<GameHistoryEvent> events) {
+        List<LoggedEvent> gameEvents = byGame.computeIfAbsent(gameID, id -> new ArrayList<>());
+        if (gameEvents.size() != afterSequence) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        for (GameHistoryEvent event : events) {
+            var logged = new LoggedEvent(log.size() + 1, gameID, gameEvents.size() + 1, now, event);
+            log.add(logged);
+            gameEvents.add(logged);
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized List<LoggedEvent> readGame(int gameID, long afterSequence) {
+        List<LoggedEvent> events = byGame.getOrDefault(gameID, List.of());
+        return List.copyOf(events.subList((int) Math.min(afterSequence, events.size()), events.size()));
+    }
+
+    @Override
+    public synchronized List<LoggedEvent> readAll(long afterPosition, int limit) {
+        int from = (int) Math.min(afterPosition, log.size());
+        return List.copyOf(log.subList(from, Math.min(log.size(), from + limit)));
+    }
+
+    @Override
+    public synchronized void saveSnapshot(GameSnapshot snapshot) {
+        snapshots.put(snapshot.gameID(), copyOf(snapshot));
+    }
+
+    @Override
+    public synchronized GameSnapshot latestSnapshot(int gameID) {
+        GameSnapshot snapshot = snapshots.get(gameID);
+        return snapshot == null ? null : copyOf(snapshot);
+    }
+
+    @Override
+    public synchronized void clear() {
+        log.clear();
+        byGame.clear();
+        snapshots.clear();
+    }
+
+    // Rebuilding a game moves pieces on the snapshot's board, so it must never be the stored one
+    private static GameSnapshot copyOf(GameSnapshot snapshot) {
+        GameData game = snapshot.game();
+        return new GameSnapshot(snapshot.gameID(), snapshot.sequence(), new GameData(game.gameID(),
+                game.whiteUsername(), game.blackUsername(), game.gameName(), game.game().copy()));
+    }
+}
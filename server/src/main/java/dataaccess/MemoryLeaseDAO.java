@@ -0,0 +1,27 @@
+package dataaccess;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+public class MemoryLeaseDAO implements LeaseDAO {
+    private final ConcurrentHashMap<Integer, GameLease> leases = new ConcurrentHashMap<>();
+
+    @Override
+    public GameLease acquire(int gameID, String node, long now, long expiresAt) {
+        return leases.compute(gameID, (id, current) -> {
+            if (current == null || current.owner().equals(node) || current.expiresAt() <= now) {
+                return new GameLease(gameID, node, expiresAt);
+            }
+            return current;
+        });
+    }
+
+    @Override
+    public void release(int gameID, String node) {
+        leases.computeIfPresent(gameID, (id, current) -> current.owner().equals(node) ? null : current);
+    }
+
+    @Override
+    public void clear() {
+        leases.clear();
+    }
+}
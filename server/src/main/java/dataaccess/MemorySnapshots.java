@@ -0,0 +1,115 @@
+package dataaccess;
+
+import com.google.gson.Gson;
+import model.AuthData;
+import model.GameData;
+import model.UserData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves the in-memory DAOs to a JSON file and loads them back on start, so an in-memory
+ * server survives a restart. Each save writes a temporary file and renames it over the old
+ * one, so a crash mid-save leaves the previous snapshot intact.
+ */
+public class MemorySnapshots implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(MemorySnapshots.class);
+    private final Gson gson = new Gson();
+    private final Path file;
+    private final MemoryUserDAO userDAO;
+    private final MemoryAuthDAO authDAO;
+    private final MemoryGameDAO gameDAO;
+    private ScheduledExecutorService saver;
+
+    private record Snapshot(List<UserData> users, List<AuthData> auths, List<GameData> games) {
+    }
+
+    /**
+     * @param gameDAO null when games are stored elsewhere
+     */
+    public MemorySnapshots(Path file, MemoryUserDAO userDAO, MemoryAuthDAO authDAO, MemoryGameDAO gameDAO) {
+        this.file = file;
+        this.userDAO = userDAO;
+        this.authDAO = authDAO;
+        this.gameDAO = gameDAO;
+    }
+
+    /**
+     * Loads the last snapshot into the DAOs, if there is one.
+     */
+    public void load() throws DataAccessException {
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            Snapshot snapshot = gson.fromJson(reader, Snapshot.class);
+            if (snapshot == null) {
+                return;
+            }
+            userDAO.restore(snapshot.users() == null ? List.of() : snapshot.users());
+            authDAO.restore(snapshot.auths() == null ? List.of() : snapshot.auths());
+            if (gameDAO != null) {
+                gameDAO.restore(snapshot.games() == null ? List.of() : snapshot.games());
+            }
+        } catch (IOException | RuntimeException e) {
+            throw new DataAccessException("Unable to load snapshot " + file + ": " + e.getMessage());
+        }
+    }
+
+    public synchronized void save() throws DataAccessException {
+        var snapshot = new Snapshot(userDAO.values(), authDAO.values(), gameDAO == null ? List.of() : gameDAO.listGames());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                gson.toJson(snapshot, writer);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new DataAccessException("Unable to save snapshot " + file + ": " + e.getMessage());
+        }
+    }
+
+    public synchronized void start(long periodSeconds) {
+        if (saver != null || periodSeconds <= 0) {
+            return;
+        }
+        saver = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snapshot-saver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        saver.scheduleWithFixedDelay(() -> {
+            try {
+                save();
+            } catch (DataAccessException e) {
+                log.warn("could not save snapshot: {}", e.getMessage());
+            }
+        }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the periodic saves and takes a final snapshot.
+     */
+    @Override
+    public void close() throws DataAccessException {
+        synchronized (this) {
+            if (saver != null) {
+                saver.shutdownNow();
+                saver = null;
+            }
+        }
+        save();
+    }
+}
@@ -2,21 +2,35 @@ package dataaccess;
 
 import model.UserData;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class MemoryUserDAO implements UserDAO{
-    private final Map<String , UserData> userMap;
+    private final ConcurrentHashMap<String , UserData> userMap = new ConcurrentHashMap<>();
+    // Null keeps passwords as given, which is all the unit tests need
+    private final PasswordHasher passwordHasher;
+
     public MemoryUserDAO() {
-        this.userMap = new HashMap<>();
+        this(null);
+    }
+
+    public MemoryUserDAO(PasswordHasher passwordHasher) {
+        this.passwordHasher = passwordHasher;
     }
 
     @Override
     public void createUser(UserData user) throws DataAccessException {
-        if (userMap.containsKey(user.username())) {
+        UserData stored = user;
+        if (passwordHasher != null) {
+            if (user.password() == null || user.password().isBlank()) {
+                throw new DataAccessException("Invalid password");
+            }
+            stored = new UserData(user.username(), passwordHasher.hash(user.password()), user.email());
+        }
+        if (userMap.putIfAbsent(user.username(), stored) != null) {
             throw new DataAccessException("User already exists");
         }
-        userMap.put(user.username(),user);
     }
 
     @Override
@@ -27,14 +41,27 @@ public class MemoryUserDAO implements UserDAO{
     @Override
     public boolean authenticateUser(String username, String password) throws DataAccessException {
         UserData user = getUser(username);
-        if (user != null && user.password().equals(password)) {
-            return true;
+        if (user == null || password == null) {
+            return false;
+        }
+        if (passwordHasher != null) {
+            return passwordHasher.matches(password, user.password());
         }
-        return false;
+        return user.password().equals(password);
     }
 
     @Override
     public void clear() throws DataAccessException {
         userMap.clear();
     }
+
+    List<UserData> values() {
+        return List.copyOf(userMap.values());
+    }
+
+    void restore(Collection<UserData> users) {
+        for (UserData user : users) {
+            userMap.put(user.username(), user);
+        }
+    }
 }
@@ -0,0 +1,82 @@
+package dataaccess;
+
+import model.AuthData;
+import profiling.DaoCallEvent;
+
+/**
+ * Wraps an AuthDAO and records how long each call takes, per operation, in the
+ * {@code chess_dao_seconds} histogram, and as {@code chess.DaoCall} flight recorder events.
+ */
+public class MeteredAuthDAO implements AuthDAO {
+    private final AuthDAO delegate;
+
+    public MeteredAuthDAO(AuthDAO delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void createAuth(AuthData auth) throws DataAccessException {
+        DaoCallEvent call = DaoMetrics.begin();
+        long start = System.nanoTime();
+        try {
+            delegate.createAuth(auth);
+        } finally {
+            DaoMetrics.record("auth", "createAuth", start, call);
+        }
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) throws DataAccessException {
+        DaoCallEvent call = DaoMetrics.begin();
+        long start = System.nanoTime();
+        try {
+            return delegate.getAuth(authToken);
+        } finally {
+            DaoMetrics.record("auth", "getAuth", start, call);
+        }
+    }
+
+    @Override
+    public void deleteAuth(String authToken) throws DataAccessException {
+        DaoCallEvent call = DaoMetrics.begin();
+        long start = System.nanoTime();
+        try {
+            delegate.deleteAuth(authToken);
+        } finally {
+            DaoMetrics.record("auth", "deleteAuth", start, call);
+        }
+    }
+
+    @Override
+    public void deleteAllAuth(String username) throws DataAccessException {
+        DaoCallEvent call = DaoMetrics.begin();
+        long start = System.nanoTime();
+        try {
+            delegate.deleteAllAuth(username);
+        } finally {
+            DaoMetrics.record("auth", "deleteAllAuth", start, call);
+        }
+    }
+
+    @Override
+    public int deleteExpired(long now, int limit) throws DataAccessException {
+        DaoCallEvent call = DaoMetrics.begin();
+        long start = System.nanoTime();
+        try {
+            return delegate.deleteExpired(now, limit);
+        } finally {
+            DaoMetrics.record("auth", "deleteExpired", start, call);
+        }
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        DaoCallEvent call = DaoMetrics.begin();
+        long start = System.nanoTime();
+        try {
+            delegate.clear();
+        } finally {
+            DaoMetrics.record("auth", "clear", start, call);
+        }
+    }
+}
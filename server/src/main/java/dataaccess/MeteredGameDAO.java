@@ -0,0 +1,156 @@
+package dataaccess;
+
+import chess.ChessGame;
+import model.GameData;
+import profiling.DaoCallEvent;
+
+import java.util.List;
+
+/**
+ * Wraps a GameDAO and records how long each call takes, per operation, in the
+ * {@code chess_dao_seconds} histogram, and as {@code chess.DaoCall} flight recorder events.
+ */
+public class MeteredGameDAO implements GameDAO {
+    private final GameDAO delegate;
+
+    public MeteredGameDAO(GameDAO delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void createGame(GameData game) throws DataAccessException {
+        DaoCallEvent call = DaoMetrics.begin();
+        long start = System.nanoTime();
+        try {
+            delegate.createGame(game);
+        } finally {
+            DaoMetrics.record("game", "createGame", start, call);
+        }
+    }
+
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException {
+        DaoCallEvent call = DaoMetrics.begin();
+        long start = System.nanoTime();
+        try {
+            return delegate.getGame(gameID);
+        } finally {
+            DaoMetrics.record("game", "getGame", start, call);
+        }
+    }
+
+    @Override
+    public List<GameData> listGames() throws DataAccessException {
+        DaoCallEvent call = DaoMetrics.begin();
+        long start = System.nanoTime();
+        try {
+            return delegate.listGames();
+        } finally {
+            DaoMetrics.record("game", "listGames", start, call);
+        }
+    }
+
+    @Override
+    public String epoch() {
+        return delegate.epoch();
+    }
+
+    @Override
+    public GameListVersion listVersion() throws DataAccessException {
+        DaoCallEvent call = DaoMetrics.begin();
+        long start = System.nanoTime();
+        try {
+            return delegate.listVersion();
+        } finally {
+            DaoMetrics.record("game", "listVersion", start, call);
+        }
+    }
+
+    @Override
+    public void updateGame(GameData game) throws DataAccessException {
+        DaoCallEvent call = DaoMetrics.begin();
+        long start = System.nanoTime();
+        try {
+            delegate.updateGame(game);
+        } finally {
+            DaoMetrics.record("game", "updateGame", start, call);
+        }
+    }
+
+    @Override
+    public boolean updateGameIfUnchanged(GameData game) throws DataAccessException {
+        DaoCallEvent call = DaoMetrics.begin();
+        long start = System.nanoTime();
+        try {
+            return delegate.updateGameIfUnchanged(game);
+        } finally {
+            DaoMetrics.record("game", "updateGameIfUnchanged", start, call);
+        }
+    }
+
+    @Override
+    public boolean[] updateGamesIfUnchanged(List<GameData> games) throws DataAccessException {
+        DaoCallEvent call = DaoMetrics.begin();
+        long start = System.nanoTime();
+        try {
+            return delegate.updateGamesIfUnchanged(games);
+        } finally {
+            DaoMetrics.record("game", "updateGamesIfUnchanged", start, call);
+        }
+    }
+
+    @Override
+    public int highestGameID() throws DataAccessException {
+        DaoCallEvent call = DaoMetrics.begin();
+        long start = System.nanoTime();
+        try {
+            return delegate.highestGameID();
+        } finally {
+            DaoMetrics.record("game", "highestGameID", start, call);
+        }
+    }
+
+    @Override
+    public int nextGameID() throws DataAccessException {
+        DaoCallEvent call = DaoMetrics.begin();
+        long start = System.nanoTime();
+        try {
+            return delegate.nextGameID();
+        } finally {
+            DaoMetrics.record("game", "nextGameID", start, call);
+        }
+    }
+
+    @Override
+    public int archiveFinishedGames(long finishedBefore, int limit) throws DataAccessException {
+        DaoCallEvent call = DaoMetrics.begin();
+        long start = System.nanoTime();
+        try {
+            return delegate.archiveFinishedGames(finishedBefore, limit);
+        } finally {
+            DaoMetrics.record("game", "archiveFinishedGames", start, call);
+        }
+    }
+
+    @Override
+    public boolean claimSeat(int gameID, ChessGame.TeamColor color, String username) throws DataAccessException {
+        DaoCallEvent call = DaoMetrics.begin();
+        long start = System.nanoTime();
+        try {
+            return delegate.claimSeat(gameID, color, username);
+        } finally {
+            DaoMetrics.record("game", "claimSeat", start, call);
+        }
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        DaoCallEvent call = DaoMetrics.begin();
+        long start = System.nanoTime();
+        try {
+            delegate.clear();
+        } finally {
+            DaoMetrics.record("game", "clear", start, call);
+        }
+    }
+}
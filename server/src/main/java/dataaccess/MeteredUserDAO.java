@@ -0,0 +1,60 @@
+package dataaccess;
+
+import model.UserData;
+import profiling.DaoCallEvent;
+
+/**
+ * Wraps a UserDAO and records how long each call takes, per operation, in the
+ * {@code chess_dao_seconds} histogram, and as {@code chess.DaoCall} flight recorder events.
+ */
+public class MeteredUserDAO implements UserDAO {
+    private final UserDAO delegate;
+
+    public MeteredUserDAO(UserDAO delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void createUser(UserData user) throws DataAccessException {
+        DaoCallEvent call = DaoMetrics.begin();
+        long start = System.nanoTime();
+        try {
+            delegate.createUser(user);
+        } finally {
+            DaoMetrics.record("user", "createUser", start, call);
+        }
+    }
+
+    @Override
+    public UserData getUser(String username) throws DataAccessException {
+        DaoCallEvent call = DaoMetrics.begin();
+        long start = System.nanoTime();
+        try {
+            return delegate.getUser(username);
+        } finally {
+            DaoMetrics.record("user", "getUser", start, call);
+        }
+    }
+
+    @Override
+    public boolean authenticateUser(String username, String password) throws DataAccessException {
+        DaoCallEvent call = DaoMetrics.begin();
+        long start = System.nanoTime();
+        try {
+            return delegate.authenticateUser(username, password);
+        } finally {
+            DaoMetrics.record("user", "authenticateUser", start, call);
+        }
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        DaoCallEvent call = DaoMetrics.begin();
+        long start = System.nanoTime();
+        try {
+            delegate.clear();
+        } finally {
+            DaoMetrics.record("user", "clear", start, call);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package dataaccess;
+
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.util.concurrent.*;
+
+/**
+ * Runs BCrypt hashing and verification on a small dedicated pool so password work can only
+ * take a bounded share of the CPU. When the pool and its queue are full, callers are rejected
+ * right away with a "Service unavailable" error instead of piling up behind each other.
+ */
+public class PasswordHasher implements AutoCloseable {
+    public static final int DEFAULT_COST = 10;
+    public static final int DEFAULT_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    public static final int DEFAULT_QUEUE_SIZE = 64;
+    public static final long DEFAULT_TIMEOUT_MILLIS = 10_000;
+
+    private final int cost;
+    private final long timeoutMillis;
+    private final ThreadPoolExecutor executor;
+
+    private final Histogram queueWait = MetricsRegistry.global().histogram("chess_bcrypt_queue_wait_seconds",
+            "Time password work waited for a free bcrypt worker");
+    private final Histogram hashTime = MetricsRegistry.global().histogram("chess_bcrypt_seconds",
+            "Time bcrypt workers spent hashing or checking a password");
+    private final Counter rejected = MetricsRegistry.global().counter("chess_bcrypt_rejected_total",
+            "Password checks turned away because the bcrypt queue was full");
+
+    public PasswordHasher() {
+        this(DEFAULT_COST, DEFAULT_THREADS, DEFAULT_QUEUE_SIZE, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Returns one process-wide hasher for callers that don't manage a hasher of their own,
+     * so each of them doesn't start (and leak) its own worker pool.
+     */
+    public static PasswordHasher shared() {
+        return Shared.INSTANCE;
+    }
+
+    public PasswordHasher(int cost, int threads, int queueSize, long timeoutMillis) {
+        this.cost = cost;
+        this.timeoutMillis = timeoutMillis;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-worker");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public String hash(String password) throws DataAccessException {
+        return submit(() -> BCrypt.hashpw(password, BCrypt.gensalt(cost)));
+    }
+
+    public boolean matches(String plainPassword, String hashedPassword) throws DataAccessException {
+        return submit(() -> BCrypt.checkpw(plainPassword, hashedPassword));
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    <T> T submit(Callable<T> task) throws DataAccessException {
+        Future<T> future;
+        long submitted = System.nanoTime();
+        try {
+            future = executor.submit(() -> {
+                long start = System.nanoTime();
+                queueWait.record(start - submitted);
+                try {
+                    return task.call();
+                } finally {
+                    hashTime.recordSince(start);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new DataAccessException("Service unavailable: too many password requests, try again later");
+        }
+
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new DataAccessException("Service unavailable: password check timed out");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new DataAccessException("Service unavailable: password check interrupted");
+        } catch (ExecutionException e) {
+            throw new DataAccessException("Error checking password: " + e.getCause().getMessage());
+        }
+    }
+
+    private static final class Shared {
+        static final PasswordHasher INSTANCE = new PasswordHasher();
+    }
+}
@@ -0,0 +1,83 @@
+package dataaccess;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides whether the reads of the current request may go to a read replica. Handlers open a
+ * scope per request naming its session (the auth token) and whether it only reads; the SQL
+ * DAOs' read methods then ask {@link DatabaseManager#getReadConnection()} for a connection,
+ * which uses a replica only when the scope allows it. A session that wrote recently stays on
+ * the primary for the sticky window, so it always sees its own writes despite replication lag.
+ * Stickiness is tracked per node, so it assumes a session's requests reach the same node.
+ */
+public final class ReadRouting {
+    public static final long DEFAULT_STICKY_MILLIS = 5_000;
+    private static final int PRUNE_ABOVE = 10_000;
+
+    private static final ThreadLocal<Scope> SCOPE = new ThreadLocal<>();
+    private static final ConcurrentHashMap<String, Long> lastWrites = new ConcurrentHashMap<>();
+    private static volatile boolean enabled = false;
+    private static volatile long stickyMillis = DEFAULT_STICKY_MILLIS;
+
+    private record Scope(String session, boolean readOnly) {
+    }
+
+    private ReadRouting() {
+    }
+
+    /**
+     * Turns routing on; until then every read goes to the primary.
+     */
+    public static void enable(long stickyWindowMillis) {
+        stickyMillis = stickyWindowMillis;
+        enabled = true;
+    }
+
+    public static void disable() {
+        enabled = false;
+        lastWrites.clear();
+    }
+
+    /**
+     * Starts a request on this thread. Only {@code readOnly} requests may read from a replica.
+     *
+     * @param session identifies the client for read-your-writes, or null if it has none yet
+     */
+    public static void begin(String session, boolean readOnly) {
+        SCOPE.set(new Scope(session, readOnly));
+    }
+
+    public static void end() {
+        SCOPE.remove();
+    }
+
+    /**
+     * Notes that {@code session} just changed data, keeping its reads on the primary for the
+     * sticky window.
+     */
+    public static void recordWrite(String session) {
+        if (!enabled || session == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        lastWrites.put(session, now);
+        if (lastWrites.size() > PRUNE_ABOVE) {
+            lastWrites.values().removeIf(at -> now - at >= stickyMillis);
+        }
+    }
+
+    static boolean replicaAllowed() {
+        if (!enabled) {
+            return false;
+        }
+        Scope scope = SCOPE.get();
+        if (scope == null || !scope.readOnly()) {
+            return false;
+        }
+        if (scope.session() == null) {
+            return true;
+        }
+        Long wroteAt = lastWrites.get(scope.session());
+        return wroteAt == null || System.currentTimeMillis() - wroteAt >= stickyMillis;
+    }
+}
@@ -4,33 +4,46 @@ import model.*;
 import java.sql.*;
 
 public class SQLAuthDAO implements AuthDAO{
-
     public SQLAuthDAO() throws DataAccessException {
-        DatabaseManager.configureDatabase(createStatements);
+        DatabaseManager.ensureSchema();
     }
 
     @Override
     public void createAuth(AuthData auth) throws DataAccessException {
-        String statement = "INSERT INTO auth (authToken, username) VALUES (?, ?)";
-        DatabaseManager.executeUpdate(statement, auth.authToken(), auth.username());
+        String statement = "INSERT INTO auth (authToken, username, expiresAt) VALUES (?, ?, ?)";
+        try (var conn = DatabaseManager.getConnection();
+             var ps = conn.prepareStatement(statement)) {
+            ps.setString(1, auth.authToken());
+            ps.setString(2, auth.username());
+            ps.setLong(3, auth.expiresAt());
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error executing update:" + e.getMessage());
+        }
     }
 
     @Override
     public AuthData getAuth(String authToken) throws DataAccessException {
-        String statement = "SELECT authToken, username FROM auth WHERE authToken = ?";
+        AuthData auth;
+        // Always the primary: a replica lagging behind a logout would still accept the token
         try (var conn = DatabaseManager.getConnection()) {
-            try (var ps = conn.prepareStatement(statement)) {
-                ps.setString(1, authToken);
-                try (var rs = ps.executeQuery()) {
-                    if (rs.next()) {
-                        String username = rs.getString("username");
-                        return new AuthData(authToken, username);
-                    }
-                }
-            }
+            auth = readAuth(conn, authToken);
         } catch (SQLException e) {
             throw new DataAccessException("Unable to read data:" + e.getMessage());
         }
+        return auth == null || auth.isExpired(System.currentTimeMillis()) ? null : auth;
+    }
+
+    private AuthData readAuth(Connection conn, String authToken) throws SQLException {
+        String statement = "SELECT authToken, username, expiresAt FROM auth WHERE authToken = ?";
+        try (var ps = conn.prepareStatement(statement)) {
+            ps.setString(1, authToken);
+            try (var rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return new AuthData(authToken, rs.getString("username"), rs.getLong("expiresAt"));
+                }
+            }
+        }
         return null;
     }
 
@@ -41,19 +54,28 @@ public class SQLAuthDAO implements AuthDAO{
     }
 
     @Override
-    public void clear() throws DataAccessException {
-        String statement = "TRUNCATE auth";
-        DatabaseManager.executeUpdate(statement);
+    public void deleteAllAuth(String username) throws DataAccessException {
+        String statement = "DELETE FROM auth WHERE username = ?";
+        DatabaseManager.executeUpdate(statement, username);
     }
 
-    private final String[] createStatements = {
-            """
-            CREATE TABLE IF NOT EXISTS auth (
-                username varchar(256) NOT NULL,
-                authToken varchar(256) NOT NULL,
-                PRIMARY KEY (authToken)
-            ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
-            """
-    };
+    @Override
+    public int deleteExpired(long now, int limit) throws DataAccessException {
+        // Range on the expiresAt index; tokens that never expire are stored as 0 and skipped
+        String statement = "DELETE FROM auth WHERE expiresAt > 0 AND expiresAt <= ? LIMIT ?";
+        try (var conn = DatabaseManager.getConnection();
+             var ps = conn.prepareStatement(statement)) {
+            ps.setLong(1, now);
+            ps.setInt(2, limit);
+            return ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error deleting expired tokens: " + e.getMessage());
+        }
+    }
 
+    @Override
+    public void clear() throws DataAccessException {
+        String statement = "DELETE FROM auth";
+        DatabaseManager.executeUpdate(statement);
+    }
 }
@@ -3,18 +3,27 @@ package dataaccess;
 import chess.ChessGame;
 import com.google.gson.Gson;
 import model.*;
+import websocket.BinaryProtocol;
+
+import java.io.*;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 
 public class SQLGameDAO implements GameDAO{
+    // A game that was already over keeps the time it ended, however often it is written since;
+    // otherwise later writes would keep pushing back its archiving
+    private static final String UPDATE_GAME = "UPDATE game SET whiteUsername = ?, blackUsername = ?, gameName = ?, "
+            + "chessGame = ?, finishedAt = CASE WHEN finishedAt > 0 THEN LEAST(finishedAt, ?) ELSE ? END, "
+            + "version = version + 1";
+
     public SQLGameDAO() throws DataAccessException {
-        DatabaseManager.configureDatabase(createStatements);
+        DatabaseManager.ensureSchema();
     }
 
     @Override
     public void createGame(GameData gameData) throws DataAccessException {
-        String statement = "INSERT INTO game (gameID, whiteUsername, blackUsername, gameName, chessGame) VALUES (?, ?, ?, ?, ?)";
+        String statement = "INSERT INTO game (gameID, whiteUsername, blackUsername, gameName, chessGame, finishedAt) VALUES (?, ?, ?, ?, ?, ?)";
         String gameJson = new Gson().toJson(gameData.game());
 
         try (Connection conn = DatabaseManager.getConnection();
@@ -24,6 +33,7 @@ public class SQLGameDAO implements GameDAO{
             ps.setString(3, gameData.blackUsername());
             ps.setString(4, gameData.gameName());
             ps.setString(5, gameJson);
+            ps.setLong(6, finishedAt(gameData));
             ps.executeUpdate();
         } catch (SQLException e) {
             throw new DataAccessException("Error creating game: " + e.getMessage());
@@ -33,7 +43,7 @@ public class SQLGameDAO implements GameDAO{
     @Override
     public GameData getGame(int gameID) throws DataAccessException {
         String statement = "SELECT * FROM game WHERE gameID = ?";
-        try (Connection conn = DatabaseManager.getConnection();
+        try (Connection conn = DatabaseManager.getReadConnection();
              PreparedStatement ps = conn.prepareStatement(statement)) {
             ps.setInt(1, gameID);
             try (ResultSet rs = ps.executeQuery()) {
@@ -43,21 +53,38 @@ public class SQLGameDAO implements GameDAO{
                     String blackUsername = rs.getString("blackUsername");
                     String gameJson = rs.getString("chessGame");
                     ChessGame chessGame = new Gson().fromJson(gameJson, ChessGame.class);
-                    return new GameData(gameID, whiteUsername, blackUsername, gameName, chessGame);
-                } else {
-                    throw new DataAccessException("Game not found with ID: " + gameID);
+                    return new GameData(gameID, whiteUsername, blackUsername, gameName, chessGame, rs.getInt("version"));
                 }
             }
+            GameData archived = readArchived(conn, gameID);
+            if (archived == null) {
+                throw new DataAccessException("Game not found with ID: " + gameID);
+            }
+            return archived;
         } catch (SQLException e) {
             throw new DataAccessException("Error retrieving game: " + e.getMessage());
         }
     }
 
+    private GameData readArchived(Connection conn, int gameID) throws SQLException {
+        String statement = "SELECT * FROM game_archive WHERE gameID = ?";
+        try (PreparedStatement ps = conn.prepareStatement(statement)) {
+            ps.setInt(1, gameID);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                return new GameData(gameID, rs.getString("whiteUsername"), rs.getString("blackUsername"),
+                        rs.getString("gameName"), unpack(rs.getBytes("chessGame")), rs.getInt("version"));
+            }
+        }
+    }
+
     @Override
     public List<GameData> listGames() throws DataAccessException {
         List<GameData> games = new ArrayList<>();
         String statement = "SELECT * FROM game";
-        try (Connection conn = DatabaseManager.getConnection();
+        try (Connection conn = DatabaseManager.getReadConnection();
              PreparedStatement ps = conn.prepareStatement(statement);
              ResultSet rs = ps.executeQuery()) {
             while (rs.next()) {
@@ -67,7 +94,7 @@ public class SQLGameDAO implements GameDAO{
                 String blackUsername = rs.getString("blackUsername");
                 String gameJson = rs.getString("chessGame");
                 ChessGame chessGame = new Gson().fromJson(gameJson, ChessGame.class);
-                games.add(new GameData(gameID, whiteUsername, blackUsername, gameName, chessGame));
+                games.add(new GameData(gameID, whiteUsername, blackUsername, gameName, chessGame, rs.getInt("version")));
             }
         } catch (SQLException e) {
             throw new DataAccessException("Error listing games: " + e.getMessage());
@@ -75,18 +102,27 @@ public class SQLGameDAO implements GameDAO{
         return games;
     }
 
+    @Override
+    public GameListVersion listVersion() throws DataAccessException {
+        String statement = "SELECT COUNT(*), COALESCE(MAX(gameID), 0), COALESCE(SUM(gameID), 0), "
+                + "COALESCE(SUM(version), 0) FROM game";
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(statement);
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            return new GameListVersion("", rs.getInt(1), rs.getInt(2), rs.getLong(3), rs.getLong(4));
+        } catch (SQLException e) {
+            throw new DataAccessException("Error listing games: " + e.getMessage());
+        }
+    }
+
     @Override
     public void updateGame(GameData gameData) throws DataAccessException {
-        String statement = "UPDATE game SET whiteUsername = ?, blackUsername = ?, gameName = ?, chessGame = ? WHERE gameID = ?";
-        String gameJson = new Gson().toJson(gameData.game());
+        String statement = UPDATE_GAME + " WHERE gameID = ?";
 
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement ps = conn.prepareStatement(statement)) {
-            ps.setString(1, gameData.whiteUsername());
-            ps.setString(2, gameData.blackUsername());
-            ps.setString(3, gameData.gameName());
-            ps.setString(4, gameJson);
-            ps.setInt(5, gameData.gameID());
+            bindUpdate(ps, new Gson(), gameData);
 
             int rowsUpdated = ps.executeUpdate();
             if (rowsUpdated == 0) {
@@ -98,28 +134,254 @@ public class SQLGameDAO implements GameDAO{
     }
 
     @Override
-    public void clear() throws DataAccessException {
-        String statement = "TRUNCATE game";
+    public boolean updateGameIfUnchanged(GameData gameData) throws DataAccessException {
+        String statement = UPDATE_GAME + " WHERE gameID = ? AND version = ?";
+
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement ps = conn.prepareStatement(statement)) {
-            ps.executeUpdate();
+            bindUpdate(ps, new Gson(), gameData);
+            ps.setInt(8, gameData.version());
+            if (ps.executeUpdate() == 1) {
+                return true;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error updating game: " + e.getMessage());
+        }
+        // Nothing matched: either someone else wrote first, or the game is gone. Archived
+        // games are finished for good, so retrying against them could never succeed.
+        if (isArchived(gameData.gameID())) {
+            throw new DataAccessException("Forbidden: game " + gameData.gameID() + " is over and archived");
+        }
+        getGame(gameData.gameID());
+        return false;
+    }
+
+    /**
+     * Sends every update as one JDBC batch in a single transaction, so the batch costs one
+     * commit instead of one per game. Drivers may answer a batch with
+     * {@link Statement#SUCCESS_NO_INFO} instead of row counts, which can't tell a hit from a
+     * miss; the updates are then run one by one in the same transaction instead.
+     */
+    @Override
+    public boolean[] updateGamesIfUnchanged(List<GameData> games) throws DataAccessException {
+        String statement = UPDATE_GAME + " WHERE gameID = ? AND version = ?";
+        Gson gson = new Gson();
+
+        try (Connection conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(statement)) {
+                for (GameData gameData : games) {
+                    bindUpdate(ps, gson, gameData);
+                    ps.setInt(8, gameData.version());
+                    ps.addBatch();
+                }
+                int[] counts = ps.executeBatch();
+                boolean[] results = new boolean[counts.length];
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == Statement.SUCCESS_NO_INFO) {
+                        conn.rollback();
+                        return updateEach(conn, ps, gson, games);
+                    }
+                    results[i] = counts[i] == 1;
+                }
+                conn.commit();
+                return results;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error updating games: " + e.getMessage());
+        }
+    }
+
+    private boolean[] updateEach(Connection conn, PreparedStatement ps, Gson gson, List<GameData> games)
+            throws SQLException {
+        boolean[] results = new boolean[games.size()];
+        for (int i = 0; i < games.size(); i++) {
+            bindUpdate(ps, gson, games.get(i));
+            ps.setInt(8, games.get(i).version());
+            results[i] = ps.executeUpdate() == 1;
+        }
+        conn.commit();
+        return results;
+    }
+
+    // Binds UPDATE_GAME's parameters and the gameID after them
+    private static void bindUpdate(PreparedStatement ps, Gson gson, GameData gameData) throws SQLException {
+        long finishedAt = finishedAt(gameData);
+        ps.setString(1, gameData.whiteUsername());
+        ps.setString(2, gameData.blackUsername());
+        ps.setString(3, gameData.gameName());
+        ps.setString(4, gson.toJson(gameData.game()));
+        ps.setLong(5, finishedAt);
+        ps.setLong(6, finishedAt);
+        ps.setInt(7, gameData.gameID());
+    }
+
+    /**
+     * Moves the oldest finished games into {@code game_archive}, one transaction per batch.
+     * The selected rows stay locked until the batch commits, so no write can slip in between
+     * copying a game and deleting it from the live table.
+     */
+    @Override
+    public int archiveFinishedGames(long finishedBefore, int limit) throws DataAccessException {
+        String select = "SELECT * FROM game WHERE finishedAt > 0 AND finishedAt <= ? ORDER BY finishedAt LIMIT ? FOR UPDATE";
+        String insert = "INSERT INTO game_archive (gameID, whiteUsername, blackUsername, gameName, chessGame, version, archivedAt) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        String delete = "DELETE FROM game WHERE gameID = ?";
+        Gson gson = new Gson();
+
+        try (Connection conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement selectPs = conn.prepareStatement(select);
+                 PreparedStatement insertPs = conn.prepareStatement(insert);
+                 PreparedStatement deletePs = conn.prepareStatement(delete)) {
+                selectPs.setLong(1, finishedBefore);
+                selectPs.setInt(2, limit);
+                long now = System.currentTimeMillis();
+                int count = 0;
+                try (ResultSet rs = selectPs.executeQuery()) {
+                    while (rs.next()) {
+                        int gameID = rs.getInt("gameID");
+                        insertPs.setInt(1, gameID);
+                        insertPs.setString(2, rs.getString("whiteUsername"));
+                        insertPs.setString(3, rs.getString("blackUsername"));
+                        insertPs.setString(4, rs.getString("gameName"));
+                        insertPs.setBytes(5, pack(gson.fromJson(rs.getString("chessGame"), ChessGame.class)));
+                        insertPs.setInt(6, rs.getInt("version"));
+                        insertPs.setLong(7, now);
+                        insertPs.addBatch();
+                        deletePs.setInt(1, gameID);
+                        deletePs.addBatch();
+                        count++;
+                    }
+                }
+                if (count > 0) {
+                    insertPs.executeBatch();
+                    deletePs.executeBatch();
+                }
+                conn.commit();
+                return count;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error archiving games: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public int highestGameID() throws DataAccessException {
+        String statement = "SELECT GREATEST((SELECT COALESCE(MAX(gameID), 0) FROM game), "
+                + "(SELECT COALESCE(MAX(gameID), 0) FROM game_archive))";
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement ps = conn.prepareStatement(statement);
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException e) {
+            throw new DataAccessException("Error reading game IDs: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Takes the next ID from the shared sequence row. The update locks the row until commit,
+     * so nodes allocating at once queue up instead of handing out the same ID. Starting past
+     * both game tables covers games stored before the sequence existed.
+     */
+    @Override
+    public int nextGameID() throws DataAccessException {
+        String update = "UPDATE game_id_sequence SET lastID = GREATEST(lastID, "
+                + "(SELECT COALESCE(MAX(gameID), 0) FROM game), "
+                + "(SELECT COALESCE(MAX(gameID), 0) FROM game_archive)) + 1 WHERE name = 'game'";
+        String select = "SELECT lastID FROM game_id_sequence WHERE name = 'game'";
+        try (Connection conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement updatePs = conn.prepareStatement(update);
+                 PreparedStatement selectPs = conn.prepareStatement(select)) {
+                if (updatePs.executeUpdate() != 1) {
+                    throw new SQLException("game_id_sequence has no row for games");
+                }
+                int gameID;
+                try (ResultSet rs = selectPs.executeQuery()) {
+                    rs.next();
+                    gameID = rs.getInt(1);
+                }
+                conn.commit();
+                return gameID;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error allocating game ID: " + e.getMessage());
+        }
+    }
+
+    private boolean isArchived(int gameID) throws DataAccessException {
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT 1 FROM game_archive WHERE gameID = ?")) {
+            ps.setInt(1, gameID);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error retrieving game: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean claimSeat(int gameID, ChessGame.TeamColor color, String username) throws DataAccessException {
+        // The column name can't be a parameter, but it only ever comes from the enum
+        String seat = color == ChessGame.TeamColor.WHITE ? "whiteUsername" : "blackUsername";
+        String statement = "UPDATE game SET " + seat + " = ?, version = version + 1 WHERE gameID = ? AND " + seat + " IS NULL";
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement ps = conn.prepareStatement(statement)) {
+            ps.setString(1, username);
+            ps.setInt(2, gameID);
+            return ps.executeUpdate() == 1;
+        } catch (SQLException e) {
+            throw new DataAccessException("Error claiming seat: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement live = conn.prepareStatement("DELETE FROM game");
+             PreparedStatement archive = conn.prepareStatement("DELETE FROM game_archive")) {
+            live.executeUpdate();
+            archive.executeUpdate();
         } catch (SQLException e) {
             throw new DataAccessException("Error clearing games: " + e.getMessage());
         }
     }
 
-    private final String[] createStatements = {
-            """
-            CREATE TABLE IF NOT EXISTS game (
-                gameID int NOT NULL,
-                whiteUsername varchar(256),
-                blackUsername varchar(256),
-                gameName varchar(256),
-                chessGame TEXT,
-                PRIMARY KEY (gameID)
-            ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
-            """
-    };
+    // Written with every update, but UPDATE_GAME keeps the first stamp, so the archiver can
+    // tell how long a game has been over
+    private static long finishedAt(GameData gameData) {
+        return gameData.game() != null && gameData.game().isGameOver() ? System.currentTimeMillis() : 0;
+    }
+
+    // Archived games and snapshots are stored in the packed LOAD_GAME form, a few dozen bytes
+    // instead of kilobytes of JSON
+    static byte[] pack(ChessGame game) throws SQLException {
+        try {
+            var bytes = new ByteArrayOutputStream();
+            BinaryProtocol.writeGame(new DataOutputStream(bytes), game);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new SQLException("Could not pack game", e);
+        }
+    }
 
+    static ChessGame unpack(byte[] packed) throws SQLException {
+        try {
+            return BinaryProtocol.readGame(new DataInputStream(new ByteArrayInputStream(packed)));
+        } catch (IOException e) {
+            throw new SQLException("Could not unpack archived game", e);
+        }
+    }
 }
-
@@ -0,0 +1,170 @@
+package dataaccess;
+
+import model.GameData;
+import model.GameHistoryEvent;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SQLGameEventDAO implements GameEventDAO {
+
+    public SQLGameEventDAO() throws DataAccessException {
+        DatabaseManager.ensureSchema();
+    }
+
+    @Override
+    public long lastSequence(int gameID) throws DataAccessException {
+        String statement = "SELECT COALESCE(MAX(gameSequence), 0) FROM game_event WHERE gameID = ?";
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement ps = conn.prepareStatement(statement)) {
+            ps.setInt(1, gameID);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error reading game history: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Inserts the events in one transaction. The unique key on (gameID, gameSequence) turns a
+     * concurrent append into a duplicate key error, which rolls the whole batch back.
+     */
+    @Override
+    public boolean append(int gameID, long afterSequence, List<GameHistoryEvent> events) throws DataAccessException {
+        String statement = "INSERT INTO game_event (gameID, gameSequence, type, payload, createdAt) VALUES (?, ?, ?, ?, ?)";
+        try (Connection conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(statement)) {
+                long now = System.currentTimeMillis();
+                long sequence = afterSequence;
+                for (GameHistoryEvent event : events) {
+                    ps.setInt(1, gameID);
+                    ps.setLong(2, ++sequence);
+                    ps.setString(3, event.type());
+                    ps.setString(4, event.toJson());
+                    ps.setLong(5, now);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                // SQLSTATE class 23 is an integrity violation, here always the sequence key
+                if (e.getSQLState() != null && e.getSQLState().startsWith("23")) {
+                    return false;
+                }
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error recording game history: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public List<LoggedEvent> readGame(int gameID, long afterSequence) throws DataAccessException {
+        String statement = "SELECT * FROM game_event WHERE gameID = ? AND gameSequence > ? ORDER BY gameSequence";
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(statement)) {
+            ps.setInt(1, gameID);
+            ps.setLong(2, afterSequence);
+            return readEvents(ps);
+        } catch (SQLException e) {
+            throw new DataAccessException("Error reading game history: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public List<LoggedEvent> readAll(long afterPosition, int limit) throws DataAccessException {
+        String statement = "SELECT * FROM game_event WHERE position > ? ORDER BY position LIMIT ?";
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(statement)) {
+            ps.setLong(1, afterPosition);
+            ps.setInt(2, limit);
+            return readEvents(ps);
+        } catch (SQLException e) {
+            throw new DataAccessException("Error reading game history: " + e.getMessage());
+        }
+    }
+
+    private List<LoggedEvent> readEvents(PreparedStatement ps) throws SQLException {
+        List<LoggedEvent> events = new ArrayList<>();
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                events.add(new LoggedEvent(rs.getLong("position"), rs.getInt("gameID"), rs.getLong("gameSequence"),
+                        rs.getLong("createdAt"), GameHistoryEvent.fromJson(rs.getString("type"), rs.getString("payload"))));
+            }
+        }
+        return events;
+    }
+
+    @Override
+    public void saveSnapshot(GameSnapshot snapshot) throws DataAccessException {
+        String update = "UPDATE game_snapshot SET gameSequence = ?, whiteUsername = ?, blackUsername = ?, gameName = ?, "
+                + "chessGame = ? WHERE gameID = ? AND gameSequence < ?";
+        String insert = "INSERT IGNORE INTO game_snapshot (gameID, gameSequence, whiteUsername, blackUsername, gameName, chessGame) "
+                + "VALUES (?, ?, ?, ?, ?, ?)";
+        GameData game = snapshot.game();
+        try (Connection conn = DatabaseManager.getConnection()) {
+            byte[] packed = SQLGameDAO.pack(game.game());
+            int updated;
+            // Never replace a snapshot with an older one
+            try (PreparedStatement ps = conn.prepareStatement(update)) {
+                ps.setLong(1, snapshot.sequence());
+                ps.setString(2, game.whiteUsername());
+                ps.setString(3, game.blackUsername());
+                ps.setString(4, game.gameName());
+                ps.setBytes(5, packed);
+                ps.setInt(6, snapshot.gameID());
+                ps.setLong(7, snapshot.sequence());
+                updated = ps.executeUpdate();
+            }
+            if (updated == 0) {
+                try (PreparedStatement ps = conn.prepareStatement(insert)) {
+                    ps.setInt(1, snapshot.gameID());
+                    ps.setLong(2, snapshot.sequence());
+                    ps.setString(3, game.whiteUsername());
+                    ps.setString(4, game.blackUsername());
+                    ps.setString(5, game.gameName());
+                    ps.setBytes(6, packed);
+                    ps.executeUpdate();
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error saving game snapshot: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public GameSnapshot latestSnapshot(int gameID) throws DataAccessException {
+        String statement = "SELECT * FROM game_snapshot WHERE gameID = ?";
+        try (Connection conn = DatabaseManager.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(statement)) {
+            ps.setInt(1, gameID);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                var game = new GameData(gameID, rs.getString("whiteUsername"), rs.getString("blackUsername"),
+                        rs.getString("gameName"), SQLGameDAO.unpack(rs.getBytes("chessGame")));
+                return new GameSnapshot(gameID, rs.getLong("gameSequence"), game);
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error reading game snapshot: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement events = conn.prepareStatement("DELETE FROM game_event");
+             PreparedStatement snapshots = conn.prepareStatement("DELETE FROM game_snapshot")) {
+            events.executeUpdate();
+            snapshots.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error clearing game history: " + e.getMessage());
+        }
+    }
+}
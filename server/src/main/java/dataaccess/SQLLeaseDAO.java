@@ -0,0 +1,67 @@
+package dataaccess;
+
+import java.sql.*;
+
+public class SQLLeaseDAO implements LeaseDAO {
+
+    public SQLLeaseDAO() throws DataAccessException {
+        DatabaseManager.ensureSchema();
+    }
+
+    @Override
+    public GameLease acquire(int gameID, String node, long now, long expiresAt) throws DataAccessException {
+        String renew = "UPDATE game_lease SET owner = ?, expiresAt = ? WHERE gameID = ? AND (owner = ? OR expiresAt <= ?)";
+        String insert = "INSERT IGNORE INTO game_lease (gameID, owner, expiresAt) VALUES (?, ?, ?)";
+        String select = "SELECT owner, expiresAt FROM game_lease WHERE gameID = ?";
+        try (Connection conn = DatabaseManager.getConnection()) {
+            int updated;
+            try (PreparedStatement ps = conn.prepareStatement(renew)) {
+                ps.setString(1, node);
+                ps.setLong(2, expiresAt);
+                ps.setInt(3, gameID);
+                ps.setString(4, node);
+                ps.setLong(5, now);
+                updated = ps.executeUpdate();
+            }
+            if (updated == 0) {
+                // Nobody has held this game yet; if another node inserts first, IGNORE keeps theirs
+                try (PreparedStatement ps = conn.prepareStatement(insert)) {
+                    ps.setInt(1, gameID);
+                    ps.setString(2, node);
+                    ps.setLong(3, expiresAt);
+                    ps.executeUpdate();
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement(select)) {
+                ps.setInt(1, gameID);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) {
+                        throw new DataAccessException("Error acquiring lease for game: " + gameID);
+                    }
+                    return new GameLease(gameID, rs.getString("owner"), rs.getLong("expiresAt"));
+                }
+            }
+        } catch (SQLException e) {
+            throw new DataAccessException("Error acquiring lease: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void release(int gameID, String node) throws DataAccessException {
+        String statement = "DELETE FROM game_lease WHERE gameID = ? AND owner = ?";
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement ps = conn.prepareStatement(statement)) {
+            ps.setInt(1, gameID);
+            ps.setString(2, node);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new DataAccessException("Error releasing lease: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void clear() throws DataAccessException {
+        String statement = "DELETE FROM game_lease";
+        DatabaseManager.executeUpdate(statement);
+    }
+}
@@ -1,13 +1,18 @@
 package dataaccess;
 
 import model.*;
-import org.mindrot.jbcrypt.BCrypt;
 import java.sql.*;
 
 public class SQLUserDAO implements UserDAO {
+    private final PasswordHasher passwordHasher;
 
     public SQLUserDAO() throws DataAccessException {
-        DatabaseManager.configureDatabase(createStatements);
+        this(PasswordHasher.shared());
+    }
+
+    public SQLUserDAO(PasswordHasher passwordHasher) throws DataAccessException {
+        this.passwordHasher = passwordHasher;
+        DatabaseManager.ensureSchema();
     }
 
     @Override
@@ -28,12 +33,12 @@ public class SQLUserDAO implements UserDAO {
         DatabaseManager.executeUpdate(statement, username, hashedPassword, email);
     }
 
-    private String hashPassword(String password) {
-        return BCrypt.hashpw(password, BCrypt.gensalt());
+    private String hashPassword(String password) throws DataAccessException {
+        return passwordHasher.hash(password);
     }
 
-    private boolean passwordMatches(String plainPassword, String hashedPassword) {
-        return BCrypt.checkpw(plainPassword, hashedPassword);
+    private boolean passwordMatches(String plainPassword, String hashedPassword) throws DataAccessException {
+        return passwordHasher.matches(plainPassword, hashedPassword);
     }
 
     @Override
@@ -69,18 +74,7 @@ public class SQLUserDAO implements UserDAO {
 
     @Override
     public void clear() throws DataAccessException {
-        String statement = "TRUNCATE user";
+        String statement = "DELETE FROM user";
         DatabaseManager.executeUpdate(statement);
     }
-
-    private final String[] createStatements = {
-            """
-            CREATE TABLE IF NOT EXISTS user (
-                username varchar(256) NOT NULL,
-                password varchar(256) NOT NULL,
-                email varchar(256),
-                PRIMARY KEY (username)
-            ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
-            """
-    };
 }
@@ -0,0 +1,167 @@
+package dataaccess;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * The database schema as an ordered list of numbered migrations. The highest number applied
+ * is recorded in {@code schema_version}, so startup only runs migrations the database has not
+ * seen yet. Released migrations must never change; add a new one instead.
+ */
+final class SchemaMigrations {
+    private record Migration(int version, String... statements) {
+    }
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1,
+                    """
+                    CREATE TABLE IF NOT EXISTS user (
+                        username varchar(256) NOT NULL,
+                        password varchar(256) NOT NULL,
+                        email varchar(256),
+                        PRIMARY KEY (username)
+                    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+                    """,
+                    """
+                    CREATE TABLE IF NOT EXISTS auth (
+                        username varchar(256) NOT NULL,
+                        authToken varchar(256) NOT NULL,
+                        PRIMARY KEY (authToken)
+                    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+                    """,
+                    """
+                    CREATE TABLE IF NOT EXISTS game (
+                        gameID int NOT NULL,
+                        whiteUsername varchar(256),
+                        blackUsername varchar(256),
+                        gameName varchar(256),
+                        chessGame TEXT,
+                        PRIMARY KEY (gameID)
+                    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+                    """),
+            // Optimistic concurrency for game writes
+            new Migration(2,
+                    "ALTER TABLE game ADD COLUMN version int NOT NULL DEFAULT 0"),
+            // Token expiry, plus the indexes the purge and per-user revocation scan
+            new Migration(3,
+                    "ALTER TABLE auth ADD COLUMN expiresAt bigint NOT NULL DEFAULT 0",
+                    "ALTER TABLE auth ADD INDEX auth_expires (expiresAt)",
+                    "ALTER TABLE auth ADD INDEX auth_username (username)"),
+            // Which node owns each game
+            new Migration(4,
+                    """
+                    CREATE TABLE IF NOT EXISTS game_lease (
+                        gameID int NOT NULL,
+                        owner varchar(64) NOT NULL,
+                        expiresAt bigint NOT NULL,
+                        PRIMARY KEY (gameID)
+                    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+                    """),
+            // Finished games move out of the live table into a compact archive
+            new Migration(5,
+                    "ALTER TABLE game ADD COLUMN finishedAt bigint NOT NULL DEFAULT 0",
+                    "ALTER TABLE game ADD INDEX game_finished (finishedAt)",
+                    """
+                    CREATE TABLE IF NOT EXISTS game_archive (
+                        gameID int NOT NULL,
+                        whiteUsername varchar(256),
+                        blackUsername varchar(256),
+                        gameName varchar(256),
+                        chessGame BLOB NOT NULL,
+                        version int NOT NULL,
+                        archivedAt bigint NOT NULL,
+                        PRIMARY KEY (gameID)
+                    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+                    """),
+            // Every game's history as an event log, with the latest snapshot of each game
+            new Migration(6,
+                    """
+                    CREATE TABLE IF NOT EXISTS game_event (
+                        position bigint NOT NULL AUTO_INCREMENT,
+                        gameID int NOT NULL,
+                        gameSequence bigint NOT NULL,
+                        type varchar(32) NOT NULL,
+                        payload TEXT NOT NULL,
+                        createdAt bigint NOT NULL,
+                        PRIMARY KEY (position),
+                        UNIQUE KEY game_event_sequence (gameID, gameSequence)
+                    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+                    """,
+                    """
+                    CREATE TABLE IF NOT EXISTS game_snapshot (
+                        gameID int NOT NULL,
+                        gameSequence bigint NOT NULL,
+                        whiteUsername varchar(256),
+                        blackUsername varchar(256),
+                        gameName varchar(256),
+                        chessGame BLOB NOT NULL,
+                        PRIMARY KEY (gameID)
+                    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+                    """),
+            // The last gameID handed out, shared by every node
+            new Migration(7,
+                    """
+                    CREATE TABLE IF NOT EXISTS game_id_sequence (
+                        name varchar(32) NOT NULL,
+                        lastID int NOT NULL,
+                        PRIMARY KEY (name)
+                    ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+                    """,
+                    "INSERT IGNORE INTO game_id_sequence (name, lastID) VALUES ('game', 0)")
+    );
+
+    private SchemaMigrations() {
+    }
+
+    /**
+     * Applies every migration newer than the database's recorded version, in order, and
+     * returns the version the database is at afterwards.
+     */
+    static int migrate(Connection conn, SqlDialect dialect) throws SQLException {
+        execute(conn, """
+                CREATE TABLE IF NOT EXISTS schema_version (
+                    version int NOT NULL,
+                    PRIMARY KEY (version)
+                ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+                """);
+        int current = currentVersion(conn);
+        for (Migration migration : MIGRATIONS) {
+            if (migration.version() <= current) {
+                continue;
+            }
+            for (String statement : migration.statements()) {
+                try {
+                    execute(conn, statement);
+                } catch (SQLException e) {
+                    // Databases created before migrations were tracked already have some of
+                    // these changes, as does one another node is migrating at the same moment
+                    if (!dialect.isAlreadyApplied(e)) {
+                        throw e;
+                    }
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement("INSERT IGNORE INTO schema_version (version) VALUES (?)")) {
+                ps.setInt(1, migration.version());
+                ps.executeUpdate();
+            }
+            current = migration.version();
+        }
+        return current;
+    }
+
+    private static int currentVersion(Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT COALESCE(MAX(version), 0) FROM schema_version");
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static void execute(Connection conn, String statement) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(statement)) {
+            ps.executeUpdate();
+        }
+    }
+}
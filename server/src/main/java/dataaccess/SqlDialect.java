@@ -0,0 +1,78 @@
+package dataaccess;
+
+import java.sql.SQLException;
+import java.util.Set;
+
+/**
+ * The databases the SQL DAOs can run on. Their statements are written for MySQL; H2 runs them
+ * in its MySQL compatibility mode, so what differs is only how connections are set up and
+ * which error codes mean a schema change is already in place.
+ */
+public enum SqlDialect {
+    /**
+     * A MySQL server named in db.properties. The database is created on first use.
+     */
+    MYSQL(Set.of(1060, 1061)),
+    /**
+     * H2 running inside this process, either in memory ({@code jdbc:h2:mem:chess}) or in a
+     * file ({@code jdbc:h2:file:data/chess}). Needs no setup, so it suits tests and small
+     * single-node deployments.
+     */
+    H2(Set.of(42121, 42111));
+
+    // "Duplicate column" and "duplicate index" in each database
+    private final Set<Integer> alreadyAppliedCodes;
+
+    SqlDialect(Set<Integer> alreadyAppliedCodes) {
+        this.alreadyAppliedCodes = alreadyAppliedCodes;
+    }
+
+    static SqlDialect forUrl(String url) {
+        if (url.startsWith("jdbc:h2:")) {
+            return H2;
+        }
+        if (url.startsWith("jdbc:mysql:")) {
+            return MYSQL;
+        }
+        throw new IllegalArgumentException("Unsupported database URL: " + url);
+    }
+
+    /**
+     * Adds the settings the DAOs rely on to a configured URL.
+     */
+    String connectionUrl(String url) {
+        if (this != H2) {
+            return url;
+        }
+        var full = new StringBuilder(url);
+        appendSetting(full, "MODE", "MySQL");
+        // The user table's name is a keyword in H2
+        appendSetting(full, "NON_KEYWORDS", "USER");
+        if (url.startsWith("jdbc:h2:mem:")) {
+            // Otherwise the database vanishes whenever no connection happens to be open
+            appendSetting(full, "DB_CLOSE_DELAY", "-1");
+        }
+        return full.toString();
+    }
+
+    /**
+     * Whether the database has to be created with CREATE DATABASE before connecting to it.
+     * H2 creates it on first connection.
+     */
+    boolean createsDatabase() {
+        return this == MYSQL;
+    }
+
+    /**
+     * Whether a failed schema change failed only because it was made before.
+     */
+    boolean isAlreadyApplied(SQLException e) {
+        return alreadyAppliedCodes.contains(e.getErrorCode());
+    }
+
+    private static void appendSetting(StringBuilder url, String name, String value) {
+        if (!url.toString().toUpperCase().contains(";" + name + "=")) {
+            url.append(';').append(name).append('=').append(value);
+        }
+    }
+}
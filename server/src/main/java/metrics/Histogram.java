@@ -0,0 +1,117 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram laid out like HdrHistogram: buckets double in width, and each doubling is
+ * split into four equal sub-buckets, so a value's bucket is never more than a quarter wider
+ * than the value itself. Recording is a few lock-free increments with no allocation. Values
+ * are nanoseconds, bucketed from about 1µs up to about nine minutes.
+ */
+public final class Histogram {
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Values are bucketed in units of 1024ns
+    private static final int UNIT_SHIFT = 10;
+    private static final int OCTAVES = 28;
+    private static final int BUCKETS = OCTAVES * SUB_BUCKETS;
+
+    // The last slot counts values too large for any bucket
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS + 1);
+    private final LongAdder sumNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        sumNanos.add(value);
+        maxNanos.accumulate(value);
+    }
+
+    /**
+     * Records the time elapsed since {@code startNanos}, a reading of {@link System#nanoTime()}.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public long count() {
+        long total = 0;
+        for (int i = 0; i <= BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    public long sumNanos() {
+        return sumNanos.sum();
+    }
+
+    /**
+     * The value at quantile {@code q} (0.99 for p99), as the upper edge of the bucket it falls
+     * in, or 0 if nothing was recorded.
+     */
+    public long quantile(double q) {
+        long total = count();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBoundNanos(i), maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    /**
+     * Writes the histogram as Prometheus cumulative buckets, one per doubling, in seconds.
+     */
+    void writeTo(StringBuilder out, String name, String labels) {
+        String separator = labels.isEmpty() ? "" : ",";
+        long cumulative = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            cumulative += counts.get(i);
+            if (i % SUB_BUCKETS == SUB_BUCKETS - 1) {
+                out.append(name).append("_bucket{").append(labels).append(separator)
+                        .append("le=\"").append(upperBoundNanos(i) / 1e9).append("\"} ").append(cumulative).append('\n');
+            }
+        }
+        // Summed from the same reads as the buckets, so +Inf and _count always agree with them
+        cumulative += counts.get(BUCKETS);
+        out.append(name).append("_bucket{").append(labels).append(separator)
+                .append("le=\"+Inf\"} ").append(cumulative).append('\n');
+        out.append(name).append("_sum").append(braced(labels)).append(' ').append(sumNanos() / 1e9).append('\n');
+        out.append(name).append("_count").append(braced(labels)).append(' ').append(cumulative).append('\n');
+    }
+
+    static int bucketOf(long nanos) {
+        long units = nanos >>> UNIT_SHIFT;
+        if (units < SUB_BUCKETS) {
+            return (int) units;
+        }
+        int octave = 63 - Long.numberOfLeadingZeros(units);
+        int sub = (int) (units >>> (octave - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        int bucket = (octave - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+        return Math.min(bucket, BUCKETS);
+    }
+
+    // Exclusive upper edge of a bucket
+    static long upperBoundNanos(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return (long) (bucket + 1) << UNIT_SHIFT;
+        }
+        int octave = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + sub + 1) << (octave - SUB_BUCKET_BITS)) << UNIT_SHIFT;
+    }
+
+    private static String braced(String labels) {
+        return labels.isEmpty() ? "" : "{" + labels + "}";
+    }
+}
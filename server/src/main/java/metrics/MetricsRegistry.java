@@ -0,0 +1,131 @@
+package metrics;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Named counters, gauges and histograms, scraped in the Prometheus text format. Metrics are
+ * created on first use and found again by name and labels; lookups never lock or build the
+ * label text, which is rendered once when a series is created, so code on a hot path can
+ * fetch its metric on every call. Labels are given as name/value pairs.
+ */
+public final class MetricsRegistry {
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    private enum Type {
+        COUNTER, GAUGE, HISTOGRAM
+    }
+
+    // labels is the rendered label text, ready for scrapes
+    private record Series(String labels, Object metric) {
+    }
+
+    private record Family(Type type, String help, Map<List<String>, Series> series) {
+    }
+
+    // Sorted so every scrape lists families in the same order
+    private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+    /**
+     * The registry the server's metrics are recorded in and GET /metrics reports.
+     */
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    public Counter counter(String name, String help, String... labels) {
+        return (Counter) series(family(name, help, Type.COUNTER), labels, Counter::new).metric();
+    }
+
+    public Histogram histogram(String name, String help, String... labels) {
+        return (Histogram) series(family(name, help, Type.HISTOGRAM), labels, Histogram::new).metric();
+    }
+
+    /**
+     * Reports whatever {@code value} returns at scrape time. Registering the same name and
+     * labels again replaces the earlier supplier.
+     */
+    public void gauge(String name, String help, LongSupplier value, String... labels) {
+        family(name, help, Type.GAUGE).series().put(key(labels), new Series(render(labels), value));
+    }
+
+    /**
+     * Every metric in the Prometheus text exposition format.
+     */
+    public String scrape() {
+        var out = new StringBuilder();
+        families.forEach((name, family) -> {
+            out.append("# HELP ").append(name).append(' ').append(family.help()).append('\n');
+            out.append("# TYPE ").append(name).append(' ').append(family.type().name().toLowerCase()).append('\n');
+            family.series().values().forEach(series -> {
+                String labels = series.labels();
+                switch (family.type()) {
+                    case COUNTER -> sample(out, name, labels, ((Counter) series.metric()).get());
+                    case GAUGE -> sample(out, name, labels, ((LongSupplier) series.metric()).getAsLong());
+                    case HISTOGRAM -> ((Histogram) series.metric()).writeTo(out, name, labels);
+                }
+            });
+        });
+        return out.toString();
+    }
+
+    private Family family(String name, String help, Type type) {
+        Family family = families.get(name);
+        if (family == null) {
+            family = families.computeIfAbsent(name, key -> new Family(type, help, new ConcurrentHashMap<>()));
+        }
+        if (family.type() != type) {
+            throw new IllegalArgumentException("Metric " + name + " is already a " + family.type().name().toLowerCase());
+        }
+        return family;
+    }
+
+    private static Series series(Family family, String[] labels, Supplier<Object> create) {
+        // Looked up through a view of the caller's array, so a hit allocates nothing
+        Series series = family.series().get(Arrays.asList(labels));
+        if (series == null) {
+            series = family.series().computeIfAbsent(key(labels), key -> new Series(render(labels), create.get()));
+        }
+        return series;
+    }
+
+    // A copy, so the caller changing its array later can't change a stored key
+    private static List<String> key(String[] labels) {
+        return Collections.unmodifiableList(Arrays.asList(labels.clone()));
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, long value) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static String render(String... labels) {
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be name/value pairs");
+        }
+        var out = new StringBuilder();
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append(labels[i]).append("=\"").append(escape(labels[i + 1])).append('"');
+        }
+        return out.toString();
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,25 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One message fanned out to the sessions watching a game on this node and published to the
+ * others.
+ */
+@Name("chess.Broadcast")
+@Label("Broadcast")
+@Category({"Chess", "WebSocket"})
+@StackTrace(false)
+public class BroadcastEvent extends jdk.jfr.Event {
+    @Label("Game ID")
+    public int gameID;
+
+    @Label("Message Type")
+    public String messageType;
+
+    @Label("Recipients")
+    public int recipients;
+}
@@ -0,0 +1,52 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * One WebSocket command, from dispatch to its last broadcast. Moves also break their time down
+ * into phases, summed over any retries after a write conflict; the phases stay zero for other
+ * commands and for moves rejected before they were saved.
+ */
+@Name("chess.WebSocketCommand")
+@Label("WebSocket Command")
+@Category({"Chess", "WebSocket"})
+@StackTrace(false)
+public class CommandEvent extends jdk.jfr.Event {
+    @Label("Command")
+    public String command;
+
+    @Label("Game ID")
+    public int gameID;
+
+    @Label("Origin")
+    @Description("local for a client on this node, forwarded for one routed here by another node")
+    public String origin;
+
+    @Label("Attempts")
+    @Description("Times the command was run; more than one means its write lost a conflict")
+    public int attempts;
+
+    @Label("Validation")
+    @Description("Reading the auth token and game, and checking the move is legal and the player's turn")
+    @Timespan(Timespan.NANOSECONDS)
+    public long validation;
+
+    @Label("Compute")
+    @Description("Making the move and checking for mate or stalemate")
+    @Timespan(Timespan.NANOSECONDS)
+    public long compute;
+
+    @Label("Persist")
+    @Description("Saving the game and appending to its history")
+    @Timespan(Timespan.NANOSECONDS)
+    public long persist;
+
+    @Label("Broadcast")
+    @Timespan(Timespan.NANOSECONDS)
+    public long broadcast;
+}
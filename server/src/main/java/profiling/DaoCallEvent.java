@@ -0,0 +1,22 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * One call through a metered DAO. Calls under a millisecond are dropped by default; lower the
+ * threshold in the recording settings to see them all.
+ */
+@Name("chess.DaoCall")
+@Label("DAO Call")
+@Category({"Chess", "Data Access"})
+@Threshold("1 ms")
+public class DaoCallEvent extends jdk.jfr.Event {
+    @Label("DAO")
+    public String dao;
+
+    @Label("Operation")
+    public String operation;
+}
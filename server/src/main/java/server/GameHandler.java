@@ -4,6 +4,7 @@ import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 import dataaccess.DataAccessException;
 import model.GameData;
+import model.GameHistoryEvent;
 import service.GameService;
 import spark.Request;
 import spark.Response;
@@ -23,12 +24,58 @@ public class GameHandler {
     public Object listGames(Request req, Response resp) throws DataAccessException {
         String authToken = req.headers("authorization");
         validateAuthToken(authToken);
+        if (notModified(req, resp, gameService.listTag(authToken))) {
+            return "";
+        }
+        // Tagged from the data actually read, which may come from a lagging replica
         List<GameData> games = gameService.listGames(authToken);
+        String tag = gameService.listTag(games);
         resp.status(200);
         resp.type("application/json");
+        resp.header("ETag", tag);
         // Return the list of games as a JSON object
         return gson.toJson(new ListGamesResponse(games));
     }
+
+    public Object getGame(Request req, Response resp) throws DataAccessException {
+        int gameID;
+        try {
+            gameID = Integer.parseInt(req.params(":gameID"));
+        } catch (NumberFormatException e) {
+            throw new DataAccessException("Bad request: invalid gameID");
+        }
+
+        String authToken = req.headers("authorization");
+        validateAuthToken(authToken);
+        GameData game = gameService.getGame(authToken, gameID);
+        String tag = gameService.gameTag(game);
+        if (notModified(req, resp, tag)) {
+            return "";
+        }
+        resp.status(200);
+        resp.type("application/json");
+        resp.header("ETag", tag);
+        return gson.toJson(game);
+    }
+
+    public Object history(Request req, Response resp) throws DataAccessException {
+        int gameID;
+        try {
+            gameID = Integer.parseInt(req.params(":gameID"));
+        } catch (NumberFormatException e) {
+            throw new DataAccessException("Bad request: invalid gameID");
+        }
+
+        String authToken = req.headers("authorization");
+        validateAuthToken(authToken);
+        List<HistoryEntry> events = gameService.history(authToken, gameID).stream()
+                .map(logged -> new HistoryEntry(logged.sequence(), logged.createdAt(), logged.event().type(), logged.event()))
+                .toList();
+        resp.status(200);
+        resp.type("application/json");
+        return gson.toJson(new HistoryResponse(events));
+    }
+
     public Object createGame(Request req, Response resp) throws DataAccessException {
         CreateGameRequest createRequest;
         try {
@@ -74,6 +121,12 @@ public class GameHandler {
     private record ListGamesResponse(List<GameData> games) {
     }
 
+    private record HistoryEntry(long sequence, long createdAt, String type, GameHistoryEvent event) {
+    }
+
+    private record HistoryResponse(List<HistoryEntry> events) {
+    }
+
     private static class CreateGameRequest {
         private String gameName;
 
@@ -90,6 +143,38 @@ public class GameHandler {
         public int getGameID() { return gameID; }
     }
 
+    private boolean notModified(Request req, Response resp, String tag) {
+        if (!matchesAny(req.headers("If-None-Match"), tag)) {
+            return false;
+        }
+        resp.status(304);
+        resp.header("ETag", tag);
+        return true;
+    }
+
+    /**
+     * Whether an If-None-Match header names {@code tag}: {@code *}, or one of its
+     * comma-separated entity-tags equal to it once any weak {@code W/} prefix is dropped.
+     */
+    static boolean matchesAny(String ifNoneMatch, String tag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*")) {
+                return true;
+            }
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private void validateAuthToken(String authToken) throws DataAccessException {
         if (authToken == null || authToken.isEmpty()) {
             throw new DataAccessException("Unauthorized: missing auth token");
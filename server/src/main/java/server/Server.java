@@ -1,17 +1,43 @@
 package server;
 
 import dataaccess.*;
+import metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import server.bus.GameEventBroker;
+import server.bus.GameEventBus;
+import server.bus.GameOwnership;
+import server.bus.InProcessGameEventBus;
+import server.bus.SocketGameEventBus;
 import server.websocket.WebSocketHandler;
 import service.*;
 import spark.*;
+import spark.embeddedserver.EmbeddedServers;
+import spark.embeddedserver.jetty.EmbeddedJettyFactory;
 import com.google.gson.Gson;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Map;
 
 public class Server {
+    private static final Logger log = LoggerFactory.getLogger(Server.class);
+    private static final long COMPACTION_PERIOD_SECONDS = 60;
+    private static final String START_ATTRIBUTE = "metrics.start";
+    private static final String ROUTE_ATTRIBUTE = "metrics.route";
 
+    private final ServerConfig config;
+    private final PasswordHasher passwordHasher;
     private final UserDAO userDAO;
     private final AuthDAO authDAO;
     private final GameDAO gameDAO;
+    private final MemorySnapshots snapshots;
+    private final MappedGameDAO mappedGames;
+    private final BatchingGameDAO batchedGames;
+    private final ExpiredAuthPurger authPurger;
+    private final GameArchiver gameArchiver;
+    private final GameEventBroker eventBroker;
+    private final GameEventBus eventBus;
+    private final GameOwnership ownership;
     private final WebSocketHandler webSocketHandler;
 
     private final UserService userService;
@@ -23,35 +49,109 @@ public class Server {
     private final Gson gson = new Gson();
 
     public Server() {
+        this(new ServerConfig());
+    }
+
+    public Server(ServerConfig config) {
+        this.config = config;
         try{
-            this.userDAO = new SQLUserDAO();
-            this.authDAO = new SQLAuthDAO();
-            this.gameDAO = new SQLGameDAO();
+            this.passwordHasher = new PasswordHasher(config.getBcryptCost(), config.getBcryptThreads(),
+                    config.getBcryptQueueSize(), PasswordHasher.DEFAULT_TIMEOUT_MILLIS);
+            if (config.getStorage() != ServerConfig.Storage.SQL) {
+                var memoryUsers = new MemoryUserDAO(passwordHasher);
+                var memoryAuths = new MemoryAuthDAO();
+                boolean mapped = config.getStorage() == ServerConfig.Storage.MAPPED;
+                var memoryGames = mapped ? null : new MemoryGameDAO();
+                this.batchedGames = null;
+                this.mappedGames = mapped ? new MappedGameDAO(Path.of(config.getMappedDirectory()),
+                        MappedGameDAO.DEFAULT_SEGMENT_BYTES, config.isMappedSync()) : null;
+                this.snapshots = config.getSnapshotFile() == null ? null
+                        : new MemorySnapshots(Path.of(config.getSnapshotFile()), memoryUsers, memoryAuths, memoryGames);
+                if (snapshots != null) {
+                    snapshots.load();
+                }
+                this.userDAO = new MeteredUserDAO(memoryUsers);
+                this.authDAO = new MeteredAuthDAO(memoryAuths);
+                this.gameDAO = new MeteredGameDAO(mapped ? mappedGames : memoryGames);
+            } else {
+                this.snapshots = null;
+                this.mappedGames = null;
+                this.userDAO = new MeteredUserDAO(new SQLUserDAO(passwordHasher));
+                this.authDAO = config.getAuthCacheMillis() > 0
+                        ? new CachingAuthDAO(new MeteredAuthDAO(new SQLAuthDAO()), config.getAuthCacheMillis(),
+                                CachingAuthDAO.DEFAULT_NEGATIVE_TTL_MILLIS, CachingAuthDAO.DEFAULT_MAX_ENTRIES)
+                        : new MeteredAuthDAO(new SQLAuthDAO());
+                // Concurrent moves share commits instead of each paying for its own
+                this.batchedGames = config.getDbBatchSize() > 1
+                        ? new BatchingGameDAO(new SQLGameDAO(), config.getDbBatchWindowMillis(), config.getDbBatchSize())
+                        : null;
+                this.gameDAO = new MeteredGameDAO(batchedGames != null ? batchedGames : new SQLGameDAO());
+            }
 
-            this.userService = new UserService(userDAO, authDAO);
-            this.gameService = new GameService(gameDAO, authDAO);
-            this.webSocketHandler = new WebSocketHandler(gameDAO, authDAO);
+            this.userService = new UserService(userDAO, authDAO, config.getAuthTtlSeconds() * 1000L);
+            this.authPurger = new ExpiredAuthPurger(authDAO);
+            this.gameArchiver = new GameArchiver(gameDAO, config.getArchiveAfterSeconds() * 1000L);
+            var history = new GameHistory(config.getStorage() == ServerConfig.Storage.SQL
+                    ? new SQLGameEventDAO() : new MemoryGameEventDAO(), config.getHistorySnapshotEvery());
+            this.gameService = new GameService(gameDAO, authDAO, history);
+            this.eventBroker = config.getBusBrokerPort() > 0 ? new GameEventBroker(config.getBusBrokerPort()) : null;
+            this.eventBus = config.getBusPort() > 0
+                    ? new SocketGameEventBus(config.getBusHost(), config.getBusPort())
+                    : new InProcessGameEventBus();
+            // With other nodes around, games need a single owner to run their commands
+            this.ownership = config.getBusPort() > 0
+                    ? new GameOwnership(new SQLLeaseDAO(), eventBus.nodeId(), config.getLeaseMillis())
+                    : null;
+            this.webSocketHandler = new WebSocketHandler(gameDAO, authDAO,
+                    config.getWsPingSeconds() * 1000L, config.getWsIdleSeconds() * 1000L, eventBus, ownership, history);
+            webSocketHandler.setBodySampleEvery(config.getLogBodySampleEvery());
 
             this.userHandler = new UserHandler(userService);
             this.gameHandler = new GameHandler(gameService);
-        } catch (DataAccessException e) {
+        } catch (DataAccessException | IOException e) {
             throw new RuntimeException("Failed to initialize server: " + e.getMessage());
         }
     }
 
     public int run(int desiredPort) {
+        configureThreading();
+        if (ownership != null) {
+            ownership.start();
+        }
+        if (snapshots != null) {
+            snapshots.start(config.getSnapshotSeconds());
+        }
+        authPurger.start(config.getAuthPurgeSeconds());
+        if (config.getStorage() == ServerConfig.Storage.SQL) {
+            gameArchiver.start(config.getArchivePeriodSeconds());
+        }
+        if (mappedGames != null) {
+            mappedGames.startCompacting(COMPACTION_PERIOD_SECONDS);
+        }
         Spark.port(desiredPort);
         Spark.webSocket("/ws", webSocketHandler);
+        // Jetty's own timeout is only a backstop behind the reaper's
+        Spark.webSocketIdleTimeoutMillis(config.getWsIdleSeconds() * 2000);
         Spark.staticFiles.location("web");
 
-        Spark.delete("/db", this::clear);
-        Spark.post("/user", userHandler::register);
-        Spark.post("/session", userHandler::login);
-        Spark.delete("/session", userHandler::logout);
+        if (config.getStorage() == ServerConfig.Storage.SQL && !config.getDbReadUrls().isEmpty()) {
+            routeReadsToReplicas();
+        }
+        meterRequests();
+
+        Spark.delete("/db", metered(this::clear));
+        Spark.post("/user", metered(userHandler::register));
+        Spark.post("/session", metered(userHandler::login));
+        Spark.delete("/session", metered(userHandler::logout));
+        Spark.delete("/session/all", metered(userHandler::logoutAll));
 
-        Spark.get("/game", gameHandler::listGames);
-        Spark.post("/game", gameHandler::createGame);
-        Spark.put("/game", gameHandler::joinGame);
+        Spark.get("/game", metered(gameHandler::listGames));
+        Spark.get("/game/:gameID", metered(gameHandler::getGame));
+        Spark.get("/game/:gameID/history", metered(gameHandler::history));
+        Spark.post("/game", metered(gameHandler::createGame));
+        Spark.put("/game", metered(gameHandler::joinGame));
+
+        Spark.get("/metrics", this::metrics);
 
         Spark.exception(DataAccessException.class, this::dataAccessExceptionHandler);
         Spark.exception(Exception.class, this::genericExceptionHandler);
@@ -60,15 +160,115 @@ public class Server {
         return Spark.port();
     }
 
+    /**
+     * Times every request from the first filter to the last, labelled with the route that
+     * handled it. Filters only see their own path pattern, so each route names itself through
+     * {@link #metered(Route)} while it runs.
+     */
+    private void meterRequests() {
+        Spark.before((req, resp) -> req.attribute(START_ATTRIBUTE, System.nanoTime()));
+        Spark.afterAfter((req, resp) -> {
+            Long start = req.attribute(START_ATTRIBUTE);
+            String route = req.attribute(ROUTE_ATTRIBUTE);
+            if (start == null || route == null) {
+                return;
+            }
+            var registry = MetricsRegistry.global();
+            registry.histogram("chess_http_request_seconds", "Time to handle an HTTP request",
+                    "route", route).recordSince(start);
+            registry.counter("chess_http_responses_total", "HTTP responses by route and status",
+                    "route", route, "status", String.valueOf(resp.status())).increment();
+        });
+        MetricsRegistry.global().gauge("chess_bcrypt_queue_depth", "Password checks waiting for a bcrypt worker",
+                passwordHasher::getQueueDepth);
+    }
+
+    private static Route metered(Route route) {
+        return (req, resp) -> {
+            req.attribute(ROUTE_ATTRIBUTE, req.requestMethod() + " " + req.matchedPath());
+            return route.handle(req, resp);
+        };
+    }
+
+    private Object metrics(Request req, Response resp) {
+        resp.status(200);
+        resp.type("text/plain; version=0.0.4");
+        return MetricsRegistry.global().scrape();
+    }
+
+    /**
+     * GET requests may read from replicas; any other request marks its session as a writer so
+     * its next reads come from the primary.
+     */
+    private void routeReadsToReplicas() {
+        ReadRouting.enable(config.getDbStickyMillis());
+        Spark.before((req, resp) -> {
+            String session = req.headers("authorization");
+            boolean readOnly = "GET".equals(req.requestMethod());
+            if (!readOnly) {
+                ReadRouting.recordWrite(session);
+            }
+            ReadRouting.begin(session, readOnly);
+        });
+        Spark.afterAfter((req, resp) -> ReadRouting.end());
+    }
+
     public void stop() {
         Spark.stop();
         Spark.awaitStop();
+        if (ownership != null) {
+            ownership.close();
+        }
+        authPurger.close();
+        gameArchiver.close();
+        eventBus.close();
+        webSocketHandler.close();
+        if (eventBroker != null) {
+            eventBroker.close();
+        }
+        if (snapshots != null) {
+            try {
+                snapshots.close();
+            } catch (DataAccessException e) {
+                log.warn("could not save final snapshot: {}", e.getMessage());
+            }
+        }
+        if (mappedGames != null) {
+            mappedGames.close();
+        }
+        if (batchedGames != null) {
+            batchedGames.close();
+        }
+        passwordHasher.close();
     }
 
-    private Object clear(Request req, Response resp) throws DataAccessException {
+    private void configureThreading() {
+        if (config.getStorage() == ServerConfig.Storage.SQL) {
+            DatabaseManager.setConnectionLimit(config.getDbMaxConnections(), config.getDbWaitMillis());
+            DatabaseManager.setReadReplicas(config.getDbReadUrls());
+        }
+        if (!config.isVirtualThreads()) {
+            return;
+        }
+        // Only honoured if no virtual thread has been started in this JVM yet
+        if (config.getCarrierThreads() > 0 && System.getProperty("jdk.virtualThreadScheduler.parallelism") == null) {
+            System.setProperty("jdk.virtualThreadScheduler.parallelism", String.valueOf(config.getCarrierThreads()));
+        }
+        EmbeddedServers.add(EmbeddedServers.Identifiers.JETTY,
+                new EmbeddedJettyFactory().withThreadPool(new VirtualThreadPool()));
+    }
 
-        userService.clear();
-        gameService.clear();
+    private Object clear(Request req, Response resp) throws DataAccessException {
+        if (config.getStorage() == ServerConfig.Storage.SQL) {
+            // One connection and one commit for every table instead of one each
+            DatabaseManager.inTransaction(() -> {
+                userService.clear();
+                gameService.clear();
+            });
+        } else {
+            userService.clear();
+            gameService.clear();
+        }
 
         resp.status(200);
         resp.type("application/json");
@@ -77,7 +277,9 @@ public class Server {
 
     private void dataAccessExceptionHandler(DataAccessException ex, Request req, Response resp) {
         String message = ex.getMessage().toLowerCase();
-        if (message.contains("unauthorized") || message.contains("invalid auth token")) {
+        if (message.contains("service unavailable")) {
+            resp.status(503);
+        } else if (message.contains("unauthorized") || message.contains("invalid auth token")) {
             resp.status(401);
         } else if (message.contains("bad request") || message.contains("invalid") || message.contains("missing")) {
             resp.status(400);
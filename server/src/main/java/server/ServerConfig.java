@@ -0,0 +1,315 @@
+package server;
+
+import dataaccess.BatchingGameDAO;
+import dataaccess.CachingAuthDAO;
+import dataaccess.PasswordHasher;
+import dataaccess.ReadRouting;
+import server.bus.GameOwnership;
+import server.websocket.WebSocketHandler;
+import service.GameHistory;
+import service.UserService;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tuning knobs for the server. Values come from -Dchess.* system properties and fall back
+ * to defaults that match the behaviour of a plain single-node server.
+ */
+public class ServerConfig {
+    private final int bcryptCost;
+    private final int bcryptThreads;
+    private final int bcryptQueueSize;
+    private final boolean virtualThreads;
+    private final int carrierThreads;
+    private final int dbMaxConnections;
+    private final int dbWaitMillis;
+    private final int dbBatchWindowMillis;
+    private final int dbBatchSize;
+    private final List<String> dbReadUrls;
+    private final int dbStickyMillis;
+    private final int wsPingSeconds;
+    private final int wsIdleSeconds;
+    private final String busHost;
+    private final int busPort;
+    private final int busBrokerPort;
+    private final int leaseMillis;
+    private final Storage storage;
+    private final String mappedDirectory;
+    private final boolean mappedSync;
+    private final String snapshotFile;
+    private final int snapshotSeconds;
+    private final int authTtlSeconds;
+    private final int authCacheMillis;
+    private final int authPurgeSeconds;
+    private final int archiveAfterSeconds;
+    private final int archivePeriodSeconds;
+    private final int historySnapshotEvery;
+    private final int logBodySampleEvery;
+
+    public ServerConfig() {
+        this.bcryptCost = intProperty("chess.bcrypt.cost", PasswordHasher.DEFAULT_COST);
+        this.bcryptThreads = intProperty("chess.bcrypt.threads", PasswordHasher.DEFAULT_THREADS);
+        this.bcryptQueueSize = intProperty("chess.bcrypt.queue", PasswordHasher.DEFAULT_QUEUE_SIZE);
+        this.virtualThreads = booleanProperty("chess.virtualThreads", false);
+        this.carrierThreads = intProperty("chess.virtualThreads.carriers", 0);
+        this.dbMaxConnections = intProperty("chess.db.maxConnections", 0);
+        this.dbWaitMillis = intProperty("chess.db.waitMillis", 5_000);
+        this.dbBatchWindowMillis = intProperty("chess.db.batchWindowMillis", BatchingGameDAO.DEFAULT_WINDOW_MILLIS);
+        this.dbBatchSize = intProperty("chess.db.batchSize", 1);
+        this.dbReadUrls = listProperty("chess.db.readUrls");
+        this.dbStickyMillis = intProperty("chess.db.stickyMillis", (int) ReadRouting.DEFAULT_STICKY_MILLIS);
+        this.wsPingSeconds = intProperty("chess.ws.pingSeconds", 30);
+        this.wsIdleSeconds = intProperty("chess.ws.idleSeconds", 90);
+        this.busHost = System.getProperty("chess.bus.host", "localhost");
+        this.busPort = intProperty("chess.bus.port", 0);
+        this.busBrokerPort = intProperty("chess.bus.brokerPort", 0);
+        this.leaseMillis = intProperty("chess.lease.millis", (int) GameOwnership.DEFAULT_LEASE_MILLIS);
+        this.storage = storageProperty("chess.storage");
+        if (busPort > 0 && storage != Storage.SQL) {
+            // Nodes agree on game owners and IDs only through a shared database
+            throw new IllegalArgumentException("chess.bus.port requires chess.storage=sql: "
+                    + "nodes with their own in-memory storage would each own every game");
+        }
+        this.mappedDirectory = System.getProperty("chess.mapped.dir", "data/games");
+        this.mappedSync = booleanProperty("chess.mapped.sync", false);
+        this.snapshotFile = System.getProperty("chess.snapshot.file");
+        this.snapshotSeconds = intProperty("chess.snapshot.seconds", 60);
+        this.authTtlSeconds = intProperty("chess.auth.ttlSeconds", (int) (UserService.DEFAULT_TOKEN_TTL_MILLIS / 1000));
+        // Logouts only clear the cache of the node that handled them, so nodes sharing a
+        // database don't cache tokens unless told to
+        this.authCacheMillis = intProperty("chess.auth.cacheMillis",
+                busPort > 0 ? 0 : (int) CachingAuthDAO.DEFAULT_TTL_MILLIS);
+        this.authPurgeSeconds = intProperty("chess.auth.purgeSeconds", 300);
+        this.archiveAfterSeconds = intProperty("chess.archive.afterSeconds", 3600);
+        this.archivePeriodSeconds = intProperty("chess.archive.periodSeconds", 600);
+        this.historySnapshotEvery = Math.max(1, intProperty("chess.history.snapshotEvery", GameHistory.DEFAULT_SNAPSHOT_EVERY));
+        this.logBodySampleEvery = intProperty("chess.log.bodySampleEvery", WebSocketHandler.DEFAULT_BODY_SAMPLE_EVERY);
+    }
+
+    public int getBcryptCost() {
+        return bcryptCost;
+    }
+
+    public int getBcryptThreads() {
+        return bcryptThreads;
+    }
+
+    public int getBcryptQueueSize() {
+        return bcryptQueueSize;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public int getCarrierThreads() {
+        return carrierThreads;
+    }
+
+    public int getDbMaxConnections() {
+        return dbMaxConnections;
+    }
+
+    public int getDbWaitMillis() {
+        return dbWaitMillis;
+    }
+
+    /**
+     * How long game writes wait for others to share their commit with.
+     */
+    public int getDbBatchWindowMillis() {
+        return dbBatchWindowMillis;
+    }
+
+    /**
+     * Most game writes committed together, or 1 (the default) to commit every write on its
+     * own. Batching is opt-in: each move waits out the batch window while its game is locked,
+     * which only pays off once commits are the bottleneck.
+     */
+    public int getDbBatchSize() {
+        return dbBatchSize;
+    }
+
+    /**
+     * JDBC URLs of read replicas that lobby reads can be served from, empty to read everything
+     * from the primary ({@code -Dchess.db.readUrls=url1,url2}).
+     */
+    public List<String> getDbReadUrls() {
+        return dbReadUrls;
+    }
+
+    /**
+     * How long a client's reads stay on the primary after it writes, so it sees its own changes.
+     */
+    public int getDbStickyMillis() {
+        return dbStickyMillis;
+    }
+
+    public int getWsPingSeconds() {
+        return wsPingSeconds;
+    }
+
+    public int getWsIdleSeconds() {
+        return wsIdleSeconds;
+    }
+
+    /**
+     * Host of the event broker this node connects to. Only used when {@link #getBusPort()} is set.
+     */
+    public String getBusHost() {
+        return busHost;
+    }
+
+    /**
+     * Port of the event broker to join, or 0 to keep game messages on this node.
+     */
+    public int getBusPort() {
+        return busPort;
+    }
+
+    /**
+     * Port on which this node hosts the event broker itself, or 0 for none.
+     */
+    public int getBusBrokerPort() {
+        return busBrokerPort;
+    }
+
+    /**
+     * How long a node's ownership of a game lasts without renewal, which is also how long a
+     * game stalls after its owner dies. Only used when joined to a broker.
+     */
+    public int getLeaseMillis() {
+        return leaseMillis;
+    }
+
+    /**
+     * Where data lives: MySQL (the default), entirely in memory, or games in a memory-mapped
+     * log with users and tokens in memory ({@code -Dchess.storage=sql|memory|mapped}). SQL
+     * storage can use an embedded H2 database instead of MySQL by setting
+     * {@code -Dchess.db.url=jdbc:h2:file:data/chess}.
+     */
+    public enum Storage {
+        SQL,
+        MEMORY,
+        MAPPED
+    }
+
+    public Storage getStorage() {
+        return storage;
+    }
+
+    public String getMappedDirectory() {
+        return mappedDirectory;
+    }
+
+    /**
+     * Force each game write to disk, trading write rate for surviving power loss.
+     */
+    public boolean isMappedSync() {
+        return mappedSync;
+    }
+
+    /**
+     * File the in-memory stores are loaded from on start and saved to, or null to keep nothing.
+     * With mapped storage only users and tokens go in it.
+     */
+    public String getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    public int getSnapshotSeconds() {
+        return snapshotSeconds;
+    }
+
+    /**
+     * How long a login lasts, or 0 for tokens that never expire.
+     */
+    public int getAuthTtlSeconds() {
+        return authTtlSeconds;
+    }
+
+    /**
+     * How long a validated token is trusted from memory, or 0 to check the database on every
+     * request. A token revoked on another node keeps working here for up to this long.
+     */
+    public int getAuthCacheMillis() {
+        return authCacheMillis;
+    }
+
+    /**
+     * How often expired tokens are deleted, or 0 to never delete them.
+     */
+    public int getAuthPurgeSeconds() {
+        return authPurgeSeconds;
+    }
+
+    /**
+     * How long a finished game stays in the live table before it is archived.
+     */
+    public int getArchiveAfterSeconds() {
+        return archiveAfterSeconds;
+    }
+
+    /**
+     * How often finished games are archived, or 0 to keep them live. Only SQL storage archives.
+     */
+    public int getArchivePeriodSeconds() {
+        return archivePeriodSeconds;
+    }
+
+    /**
+     * How many events a game's history gets between snapshots, which bounds how many a rebuild replays.
+     */
+    public int getHistorySnapshotEvery() {
+        return historySnapshotEvery;
+    }
+
+    /**
+     * Logs one in this many raw WebSocket messages when body logging is on
+     * ({@code -Dchess.log.bodies=DEBUG}). Log levels themselves are set with -Dchess.log.level.
+     */
+    public int getLogBodySampleEvery() {
+        return logBodySampleEvery;
+    }
+
+    static int intProperty(String name, int defaultValue) {
+        String value = System.getProperty(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for " + name + ": " + value);
+        }
+    }
+
+    static List<String> listProperty(String name) {
+        String value = System.getProperty(name);
+        if (value == null || value.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(value.split(",")).map(String::trim).filter(item -> !item.isEmpty()).toList();
+    }
+
+    static Storage storageProperty(String name) {
+        String value = System.getProperty(name);
+        if (value == null || value.isBlank()) {
+            return Storage.SQL;
+        }
+        try {
+            return Storage.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid value for " + name + ": " + value);
+        }
+    }
+
+    static boolean booleanProperty(String name, boolean defaultValue) {
+        String value = System.getProperty(name);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        return Boolean.parseBoolean(value.trim());
+    }
+}
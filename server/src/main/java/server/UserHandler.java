@@ -62,6 +62,19 @@ public Object logout(Request req, Response resp) throws DataAccessException {
 
     userService.logoutUser(authToken);
 
+    resp.status(200);
+    resp.type("application/json");
+    return "{}";
+    }
+
+public Object logoutAll(Request req, Response resp) throws DataAccessException {
+    String authToken = req.headers("authorization");
+    if (authToken == null || authToken.isEmpty()) {
+        throw new DataAccessException("Unauthorized: missing auth token");
+    }
+
+    userService.logoutAllSessions(authToken);
+
     resp.status(200);
     resp.type("application/json");
     return "{}";
@@ -0,0 +1,64 @@
+package server;
+
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.thread.ThreadPool;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Jetty thread pool that runs every task on its own virtual thread. Handlers that block on
+ * JDBC only park their virtual thread, so the number of in-flight requests is no longer
+ * capped by a platform thread pool.
+ */
+public class VirtualThreadPool extends AbstractLifeCycle implements ThreadPool {
+    private final ThreadFactory factory = Thread.ofVirtual().name("jetty-vt-", 0).factory();
+    private final AtomicInteger active = new AtomicInteger();
+    private volatile CountDownLatch stopped = new CountDownLatch(1);
+
+    @Override
+    protected void doStart() throws Exception {
+        stopped = new CountDownLatch(1);
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception {
+        super.doStop();
+        stopped.countDown();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        active.incrementAndGet();
+        Thread thread = factory.newThread(() -> {
+            try {
+                task.run();
+            } finally {
+                active.decrementAndGet();
+            }
+        });
+        thread.start();
+    }
+
+    @Override
+    public void join() throws InterruptedException {
+        stopped.await();
+    }
+
+    @Override
+    public int getThreads() {
+        return active.get();
+    }
+
+    @Override
+    public int getIdleThreads() {
+        return 0;
+    }
+
+    @Override
+    public boolean isLowOnThreads() {
+        return false;
+    }
+}
@@ -0,0 +1,32 @@
+package server.bus;
+
+/**
+ * One line of the socket bus protocol, sent as JSON. {@code event} is only set for PUBLISH,
+ * {@code direct} for DIRECT, and {@code node} for HELLO, which a bus sends first so the
+ * broker can route direct messages to it.
+ */
+record BusFrame(Op op, int gameID, GameEvent event, NodeMessage direct, String node) {
+    enum Op {
+        HELLO,
+        SUBSCRIBE,
+        UNSUBSCRIBE,
+        PUBLISH,
+        DIRECT
+    }
+
+    static BusFrame hello(String node) {
+        return new BusFrame(Op.HELLO, 0, null, null, node);
+    }
+
+    static BusFrame subscription(Op op, int gameID) {
+        return new BusFrame(op, gameID, null, null, null);
+    }
+
+    static BusFrame publish(GameEvent event) {
+        return new BusFrame(Op.PUBLISH, event.gameID(), event, null, null);
+    }
+
+    static BusFrame direct(NodeMessage message) {
+        return new BusFrame(Op.DIRECT, message.gameID(), null, message, null);
+    }
+}
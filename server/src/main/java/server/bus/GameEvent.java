@@ -0,0 +1,32 @@
+package server.bus;
+
+import com.google.gson.Gson;
+import websocket.messages.ErrorMessage;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.NotificationMessage;
+import websocket.messages.ServerMessage;
+
+/**
+ * A game message on its way to other nodes. The message travels as JSON so every bus
+ * implementation can carry it unchanged; {@code excludedUsername} is kept so receivers can
+ * replay the message correctly. {@code excludedSession} is the key of a session on another
+ * node that must not receive the message, set when the command came from that node.
+ */
+public record GameEvent(String origin, int gameID, long sequence, String excludedUsername, String excludedSession,
+                        ServerMessage.ServerMessageType type, String json) {
+    private static final Gson GSON = new Gson();
+
+    public static GameEvent of(String origin, int gameID, String excludedUsername, String excludedSession,
+                               ServerMessage message) {
+        return new GameEvent(origin, gameID, message.getSequence(), excludedUsername, excludedSession,
+                message.getServerMessageType(), GSON.toJson(message));
+    }
+
+    public ServerMessage message() {
+        return switch (type) {
+            case LOAD_GAME -> GSON.fromJson(json, LoadGameMessage.class);
+            case ERROR -> GSON.fromJson(json, ErrorMessage.class);
+            case NOTIFICATION -> GSON.fromJson(json, NotificationMessage.class);
+        };
+    }
+}
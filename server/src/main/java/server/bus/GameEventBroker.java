@@ -0,0 +1,163 @@
+package server.bus;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Small embedded broker for {@link SocketGameEventBus}. Nodes connect over TCP and send one
+ * JSON {@link BusFrame} per line; published events are forwarded only to the other nodes
+ * subscribed to that game. One node (or a standalone process) hosts the broker.
+ */
+public class GameEventBroker implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(GameEventBroker.class);
+    private final Gson gson = new Gson();
+    private final ServerSocket serverSocket;
+    private final ConcurrentHashMap<Integer, Set<Peer>> subscribers = new ConcurrentHashMap<>();
+    private final Set<Peer> peers = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<String, Peer> nodes = new ConcurrentHashMap<>();
+
+    public GameEventBroker(int port) throws IOException {
+        this(InetAddress.getLoopbackAddress(), port);
+    }
+
+    public GameEventBroker(InetAddress bindAddress, int port) throws IOException {
+        this.serverSocket = new ServerSocket(port, 50, bindAddress);
+        daemon("event-broker", this::acceptLoop).start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+        peers.forEach(Peer::close);
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                var peer = new Peer(serverSocket.accept());
+                peers.add(peer);
+                daemon("event-broker-peer", peer::readLoop).start();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    log.warn("event broker accept failed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void handle(Peer peer, String line) {
+        BusFrame frame = gson.fromJson(line, BusFrame.class);
+        switch (frame.op()) {
+            case HELLO -> {
+                peer.node = frame.node();
+                nodes.put(frame.node(), peer);
+            }
+            case DIRECT -> {
+                Peer target = nodes.get(frame.direct().target());
+                if (target != null) {
+                    target.send(line);
+                } else if (frame.direct().kind() == NodeMessage.Kind.COMMAND) {
+                    peer.send(gson.toJson(BusFrame.direct(frame.direct().undeliverable())));
+                }
+            }
+            case SUBSCRIBE -> subscribers.computeIfAbsent(frame.gameID(), k -> ConcurrentHashMap.newKeySet()).add(peer);
+            case UNSUBSCRIBE -> unsubscribe(peer, frame.gameID());
+            case PUBLISH -> {
+                Set<Peer> targets = subscribers.get(frame.gameID());
+                if (targets != null) {
+                    for (Peer target : targets) {
+                        if (target != peer) {
+                            target.send(line);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void unsubscribe(Peer peer, int gameID) {
+        subscribers.computeIfPresent(gameID, (id, set) -> {
+            set.remove(peer);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    private static Thread daemon(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private class Peer {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final Writer out;
+        private volatile String node;
+
+        Peer(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            this.out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        }
+
+        void readLoop() {
+            try {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    try {
+                        handle(this, line);
+                    } catch (JsonParseException | NullPointerException e) {
+                        log.warn("event broker dropped malformed frame: {}", e.getMessage());
+                    }
+                }
+            } catch (IOException e) {
+                // Peer went away
+            } finally {
+                close();
+            }
+        }
+
+        synchronized void send(String line) {
+            try {
+                out.write(line);
+                out.write('\n');
+                out.flush();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        void close() {
+            peers.remove(this);
+            if (node != null) {
+                nodes.remove(node, this);
+            }
+            for (Integer gameID : subscribers.keySet()) {
+                unsubscribe(this, gameID);
+            }
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+}
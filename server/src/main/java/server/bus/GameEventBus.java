@@ -0,0 +1,33 @@
+package server.bus;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries game messages between server nodes. A node subscribes to a game while it has local
+ * sessions watching it and receives every event other nodes publish for that game; its own
+ * events are never echoed back to it. Nodes can also address each other directly with
+ * {@link NodeMessage}s, which is how commands reach the node that owns a game.
+ */
+public interface GameEventBus extends AutoCloseable {
+    String nodeId();
+
+    void setListener(Consumer<GameEvent> listener);
+
+    void subscribe(int gameID);
+
+    void unsubscribe(int gameID);
+
+    void publish(GameEvent event);
+
+    void setDirectListener(Consumer<NodeMessage> listener);
+
+    /**
+     * Delivers the message to the node named by its target, if that node is connected. A
+     * COMMAND that can't be delivered is answered with {@link NodeMessage#undeliverable()}
+     * through this node's direct listener; anything else is dropped.
+     */
+    void send(NodeMessage message);
+
+    @Override
+    void close();
+}
@@ -0,0 +1,138 @@
+package server.bus;
+
+import dataaccess.DataAccessException;
+import dataaccess.GameLease;
+import dataaccess.LeaseDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides which node runs the game logic for each game. The owner holds a lease in the
+ * {@link LeaseDAO}; other nodes forward state-changing commands to it, so a game is only ever
+ * written by one node. Leases of games that are still being played are renewed in the
+ * background, idle ones are released, and a node that dies simply stops renewing: once its
+ * leases expire the next node to see a command for the game takes it over.
+ */
+public class GameOwnership implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(GameOwnership.class);
+    public static final long DEFAULT_LEASE_MILLIS = 15_000;
+    static final long IDLE_RELEASE_MILLIS = 5 * 60_000;
+
+    private final LeaseDAO leases;
+    private final String nodeId;
+    private final long leaseMillis;
+    private final LongSupplier clock;
+    private final ConcurrentHashMap<Integer, Held> known = new ConcurrentHashMap<>();
+    private ScheduledExecutorService renewer;
+
+    private record Held(GameLease lease, long lastUsed) {
+    }
+
+    public GameOwnership(LeaseDAO leases, String nodeId, long leaseMillis) {
+        this(leases, nodeId, leaseMillis, System::currentTimeMillis);
+    }
+
+    GameOwnership(LeaseDAO leases, String nodeId, long leaseMillis, LongSupplier clock) {
+        this.leases = leases;
+        this.nodeId = nodeId;
+        this.leaseMillis = leaseMillis;
+        this.clock = clock;
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Returns the node that owns the game, taking the lease for this node if nobody holds it.
+     * A lease this node holds is trusted until a third of its term is left, so a write started
+     * just before expiry still finishes before another node can take over.
+     */
+    public String ownerOf(int gameID) throws DataAccessException {
+        long now = clock.getAsLong();
+        Held held = known.get(gameID);
+        if (held != null) {
+            GameLease lease = held.lease();
+            boolean mine = lease.owner().equals(nodeId);
+            if (now < lease.expiresAt() - (mine ? leaseMillis / 3 : 0)) {
+                known.put(gameID, new Held(lease, now));
+                return lease.owner();
+            }
+        }
+        GameLease lease = leases.acquire(gameID, nodeId, now, now + leaseMillis);
+        known.put(gameID, new Held(lease, now));
+        return lease.owner();
+    }
+
+    public boolean isLocal(int gameID) throws DataAccessException {
+        return nodeId.equals(ownerOf(gameID));
+    }
+
+    /**
+     * Renews leases on owned games used recently and releases the rest. Run periodically by
+     * {@link #start()}; exposed for tests.
+     */
+    void renew() {
+        long now = clock.getAsLong();
+        for (var entry : known.entrySet()) {
+            int gameID = entry.getKey();
+            Held held = entry.getValue();
+            try {
+                if (!held.lease().owner().equals(nodeId)) {
+                    if (held.lease().expiresAt() <= now) {
+                        known.remove(gameID, held);
+                    }
+                } else if (now - held.lastUsed() >= IDLE_RELEASE_MILLIS) {
+                    known.remove(gameID, held);
+                    leases.release(gameID, nodeId);
+                } else {
+                    GameLease lease = leases.acquire(gameID, nodeId, now, now + leaseMillis);
+                    known.replace(gameID, held, new Held(lease, held.lastUsed()));
+                }
+            } catch (DataAccessException e) {
+                log.warn("could not renew lease game={}: {}", gameID, e.getMessage());
+            }
+        }
+    }
+
+    public synchronized void start() {
+        if (renewer != null) {
+            return;
+        }
+        renewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "lease-renewer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, leaseMillis / 3);
+        renewer.scheduleWithFixedDelay(this::renew, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops renewing and hands back every lease this node holds so other nodes can take the
+     * games over straight away instead of waiting for them to expire.
+     */
+    @Override
+    public synchronized void close() {
+        if (renewer != null) {
+            renewer.shutdownNow();
+            renewer = null;
+        }
+        for (var entry : known.entrySet()) {
+            if (entry.getValue().lease().owner().equals(nodeId)) {
+                try {
+                    leases.release(entry.getKey(), nodeId);
+                } catch (DataAccessException e) {
+                    log.warn("could not release lease game={}: {}", entry.getKey(), e.getMessage());
+                }
+            }
+        }
+        known.clear();
+    }
+}
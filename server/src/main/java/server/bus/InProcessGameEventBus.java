@@ -0,0 +1,88 @@
+package server.bus;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Bus for nodes living in the same JVM. Nodes that share a {@link Hub} see each other's
+ * events; a bus created without one is a single-node bus where publishing reaches nobody.
+ */
+public class InProcessGameEventBus implements GameEventBus {
+    private final Hub hub;
+    private final String nodeId = UUID.randomUUID().toString();
+    private volatile Consumer<GameEvent> listener = event -> { };
+    private volatile Consumer<NodeMessage> directListener = message -> { };
+
+    public InProcessGameEventBus() {
+        this(new Hub());
+    }
+
+    public InProcessGameEventBus(Hub hub) {
+        this.hub = hub;
+        hub.nodes.put(nodeId, this);
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void setListener(Consumer<GameEvent> listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void subscribe(int gameID) {
+        hub.subscribers.computeIfAbsent(gameID, k -> ConcurrentHashMap.newKeySet()).add(this);
+    }
+
+    @Override
+    public void unsubscribe(int gameID) {
+        hub.subscribers.computeIfPresent(gameID, (id, buses) -> {
+            buses.remove(this);
+            return buses.isEmpty() ? null : buses;
+        });
+    }
+
+    @Override
+    public void publish(GameEvent event) {
+        Set<InProcessGameEventBus> buses = hub.subscribers.get(event.gameID());
+        if (buses == null) {
+            return;
+        }
+        for (InProcessGameEventBus bus : buses) {
+            if (bus != this) {
+                bus.listener.accept(event);
+            }
+        }
+    }
+
+    @Override
+    public void setDirectListener(Consumer<NodeMessage> listener) {
+        this.directListener = listener;
+    }
+
+    @Override
+    public void send(NodeMessage message) {
+        InProcessGameEventBus target = hub.nodes.get(message.target());
+        if (target != null) {
+            target.directListener.accept(message);
+        } else if (message.kind() == NodeMessage.Kind.COMMAND) {
+            directListener.accept(message.undeliverable());
+        }
+    }
+
+    @Override
+    public void close() {
+        hub.nodes.remove(nodeId);
+        hub.subscribers.values().forEach(buses -> buses.remove(this));
+    }
+
+    public static class Hub {
+        private final ConcurrentHashMap<Integer, Set<InProcessGameEventBus>> subscribers = new ConcurrentHashMap<>();
+        private final ConcurrentHashMap<String, InProcessGameEventBus> nodes = new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,28 @@
+package server.bus;
+
+/**
+ * A message addressed to one node rather than to everyone watching a game. Non-owners send
+ * COMMAND to the game's owner with the client's command as JSON; the owner answers with ERROR
+ * (payload is the error text) or LEFT for the WebSocket session identified by {@code sessionKey}.
+ * A COMMAND whose target isn't connected comes back to its sender as {@link #undeliverable()}.
+ */
+public record NodeMessage(String origin, String target, Kind kind, String sessionKey, int gameID, String payload) {
+    public enum Kind {
+        COMMAND,
+        ERROR,
+        LEFT
+    }
+
+    public static final String UNDELIVERABLE = "Error: the game's server is unavailable, try again";
+
+    public NodeMessage reply(Kind kind, String payload) {
+        return new NodeMessage(target, origin, kind, sessionKey, gameID, payload);
+    }
+
+    /**
+     * The ERROR the sender gets instead of an answer when this message can't reach its target.
+     */
+    public NodeMessage undeliverable() {
+        return reply(Kind.ERROR, UNDELIVERABLE);
+    }
+}
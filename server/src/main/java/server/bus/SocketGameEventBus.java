@@ -0,0 +1,184 @@
+package server.bus;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Bus that talks to a {@link GameEventBroker} over a socket. If the broker connection drops,
+ * the bus keeps reconnecting in the background and re-sends its subscriptions; events
+ * published while disconnected are lost, and clients recover them through RESUME.
+ */
+public class SocketGameEventBus implements GameEventBus {
+    private static final Logger log = LoggerFactory.getLogger(SocketGameEventBus.class);
+    private static final long RECONNECT_DELAY_MILLIS = 1_000;
+
+    private final Gson gson = new Gson();
+    private final String host;
+    private final int port;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Set<Integer> subscriptions = ConcurrentHashMap.newKeySet();
+    private volatile Consumer<GameEvent> listener = event -> { };
+    private volatile Consumer<NodeMessage> directListener = message -> { };
+    private volatile boolean closed = false;
+    private Socket socket;
+    private Writer out;
+
+    public SocketGameEventBus(String host, int port) throws IOException {
+        this.host = host;
+        this.port = port;
+        BufferedReader in = connect();
+        Thread reader = new Thread(() -> readLoop(in), "event-bus-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void setListener(Consumer<GameEvent> listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void subscribe(int gameID) {
+        if (subscriptions.add(gameID)) {
+            send(BusFrame.subscription(BusFrame.Op.SUBSCRIBE, gameID));
+        }
+    }
+
+    @Override
+    public void unsubscribe(int gameID) {
+        if (subscriptions.remove(gameID)) {
+            send(BusFrame.subscription(BusFrame.Op.UNSUBSCRIBE, gameID));
+        }
+    }
+
+    @Override
+    public void publish(GameEvent event) {
+        send(BusFrame.publish(event));
+    }
+
+    @Override
+    public void setDirectListener(Consumer<NodeMessage> listener) {
+        this.directListener = listener;
+    }
+
+    @Override
+    public void send(NodeMessage message) {
+        // The broker bounces commands for nodes it doesn't know; this covers losing the broker
+        if (!send(BusFrame.direct(message)) && message.kind() == NodeMessage.Kind.COMMAND) {
+            directListener.accept(message.undeliverable());
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        closeSocket();
+    }
+
+    private synchronized BufferedReader connect() throws IOException {
+        socket = new Socket(host, port);
+        socket.setTcpNoDelay(true);
+        out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        write(gson.toJson(BusFrame.hello(nodeId)));
+        for (Integer gameID : subscriptions) {
+            write(gson.toJson(BusFrame.subscription(BusFrame.Op.SUBSCRIBE, gameID)));
+        }
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    private synchronized boolean send(BusFrame frame) {
+        if (out == null) {
+            return false;
+        }
+        try {
+            write(gson.toJson(frame));
+            return true;
+        } catch (IOException e) {
+            // The reader notices the broken socket and reconnects
+            closeSocket();
+            return false;
+        }
+    }
+
+    private void write(String line) throws IOException {
+        out.write(line);
+        out.write('\n');
+        out.flush();
+    }
+
+    private void readLoop(BufferedReader in) {
+        while (!closed) {
+            try {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    deliver(line);
+                }
+            } catch (IOException e) {
+                // Fall through to reconnect
+            }
+            in = reconnect();
+            if (in == null) {
+                return;
+            }
+        }
+    }
+
+    private void deliver(String line) {
+        try {
+            BusFrame frame = gson.fromJson(line, BusFrame.class);
+            if (frame.op() == BusFrame.Op.PUBLISH && !nodeId.equals(frame.event().origin())) {
+                listener.accept(frame.event());
+            } else if (frame.op() == BusFrame.Op.DIRECT) {
+                directListener.accept(frame.direct());
+            }
+        } catch (JsonParseException | NullPointerException e) {
+            log.warn("event bus dropped malformed frame: {}", e.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("event bus listener failed: {}", e.getMessage());
+        }
+    }
+
+    private BufferedReader reconnect() {
+        synchronized (this) {
+            closeSocket();
+        }
+        while (!closed) {
+            try {
+                Thread.sleep(RECONNECT_DELAY_MILLIS);
+                return connect();
+            } catch (IOException e) {
+                log.warn("event bus reconnect failed: {}", e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private void closeSocket() {
+        out = null;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+}
@@ -17,4 +17,8 @@ public class Connection {
     public void send(String message) throws IOException {
         session.getRemote().sendString(message);
     }
+
+    void send(OutboundMessage message) throws IOException {
+        message.sendTo(session);
+    }
 }
\ No newline at end of file
@@ -1,77 +1,349 @@
 package server.websocket;
 
-import com.google.gson.Gson;
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
 import org.eclipse.jetty.websocket.api.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import profiling.BroadcastEvent;
+import server.bus.GameEvent;
+import server.bus.GameEventBus;
+import server.bus.InProcessGameEventBus;
 import websocket.messages.ServerMessage;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ConnectionManager {
-    private final ConcurrentHashMap<Integer, ConcurrentHashMap<String, Connection>> connections = new ConcurrentHashMap<>();
+    private static final Logger log = LoggerFactory.getLogger(ConnectionManager.class);
+    static final int REPLAY_CAPACITY = 128;
+    // A game nobody here watches keeps its replay buffer this long after its last message
+    static final long STREAM_IDLE_MILLIS = 10 * 60_000;
+    private static final int REMOTE_DELIVERY_LANES = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    private final ConcurrentHashMap<Integer, GameConnections> connections = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, GameStream> streams = new ConcurrentHashMap<>();
+    // Reverse index so a closing session can find its games without scanning every game
+    private final ConcurrentHashMap<Session, Set<Integer>> sessions = new ConcurrentHashMap<>();
+    // Stable names for sessions so other nodes can refer to them in forwarded commands
+    private final ConcurrentHashMap<Session, String> keys = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Session> sessionsByKey = new ConcurrentHashMap<>();
+    private final GameEventBus bus;
+    private ScheduledExecutorService sweeper;
+    // Other nodes' messages are sent to local sessions here, never on the bus's reader thread,
+    // so one slow client can't hold up every game's cross-node messages. Each game always
+    // uses the same lane.
+    private final ExecutorService[] remoteDeliveryLanes = new ExecutorService[REMOTE_DELIVERY_LANES];
+
+    private final Histogram broadcastTime = MetricsRegistry.global().histogram("chess_ws_broadcast_seconds",
+            "Time to fan a game message out to local sessions and other nodes");
+    private final Counter messagesSent = MetricsRegistry.global().counter("chess_ws_messages_sent_total",
+            "Game messages sent to WebSocket sessions");
+
+    public ConnectionManager() {
+        this(new InProcessGameEventBus());
+    }
+
+    /**
+     * @param bus carries this node's broadcasts to other nodes and theirs to this one; the
+     *            node is subscribed to a game for as long as it has local sessions in it
+     */
+    public ConnectionManager(GameEventBus bus) {
+        this.bus = bus;
+        for (int i = 0; i < remoteDeliveryLanes.length; i++) {
+            String name = "remote-delivery-" + i;
+            remoteDeliveryLanes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        bus.setListener(this::deliverRemote);
+        MetricsRegistry.global().gauge("chess_ws_sessions", "Open WebSocket sessions watching a game", sessions::size);
+    }
 
     public void add(String username, Integer gameID, Session session) {
         var connection = new Connection(username, gameID, session);
-        connections.computeIfAbsent(gameID, k -> new ConcurrentHashMap<>()).put(username, connection);
+        var firstLocal = new AtomicBoolean();
+        sessions.computeIfAbsent(session, k -> ConcurrentHashMap.newKeySet()).add(gameID);
+        connections.compute(gameID, (id, gameConnections) -> {
+            var target = gameConnections;
+            if (target == null) {
+                target = new GameConnections();
+                firstLocal.set(true);
+            }
+            target.put(connection);
+            return target;
+        });
+        if (firstLocal.get()) {
+            bus.subscribe(gameID);
+        }
     }
 
-    public void remove(Integer gameID, String username) {
-        var gameConnections = connections.get(gameID);
-        if (gameConnections != null) {
-            gameConnections.remove(username);
-            if (gameConnections.isEmpty()) {
-                connections.remove(gameID);
+    /**
+     * Registers the session and sends it its first message stamped with the game's current
+     * sequence, so the client knows where to resume from if it drops.
+     */
+    public void connect(String username, Integer gameID, Session session, ServerMessage initial) throws IOException {
+        GameStream stream = stream(gameID);
+        synchronized (stream) {
+            add(username, gameID, session);
+            initial.setSequence(stream.lastSequence());
+            stream.outbox().add(toOne(username, gameID, session, new OutboundMessage(initial)));
+        }
+        flush(stream);
+    }
+
+    /**
+     * Registers the session and replays what it missed after {@code lastSequence}. Returns
+     * false without sending anything if those messages are no longer buffered.
+     */
+    public boolean resume(String username, Integer gameID, Session session, long lastSequence) throws IOException {
+        GameStream stream = stream(gameID);
+        synchronized (stream) {
+            List<OutboundMessage> missed = stream.since(lastSequence, username);
+            if (missed == null) {
+                return false;
+            }
+            add(username, gameID, session);
+            for (OutboundMessage outbound : missed) {
+                stream.outbox().add(toOne(username, gameID, session, outbound));
             }
         }
+        flush(stream);
+        return true;
+    }
+
+    public void remove(Integer gameID, Session session) {
+        removeFromGame(gameID, session);
+        sessions.computeIfPresent(session, (s, gameIDs) -> {
+            gameIDs.remove(gameID);
+            return gameIDs.isEmpty() ? null : gameIDs;
+        });
     }
 
-    public void broadcast(Integer targetID, String excludeUserName, ServerMessage message) throws IOException {
-        var gameConnections = connections.get(targetID);
-        if (gameConnections == null || gameConnections.isEmpty()) {
+    public void removeSession(Session session) {
+        String key = keys.remove(session);
+        if (key != null) {
+            sessionsByKey.remove(key);
+        }
+        var gameIDs = sessions.remove(session);
+        if (gameIDs == null) {
             return;
         }
+        for (Integer gameID : gameIDs) {
+            removeFromGame(gameID, session);
+        }
+    }
+
+    public String keyOf(Session session) {
+        return keys.computeIfAbsent(session, s -> {
+            String key = UUID.randomUUID().toString();
+            sessionsByKey.put(key, s);
+            return key;
+        });
+    }
 
-        var removeList = new ArrayList<String>();
-        for (var entry : gameConnections.entrySet()) {
-            String username = entry.getKey();
-            Connection connection = entry.getValue();
+    public Session sessionFor(String key) {
+        return key == null ? null : sessionsByKey.get(key);
+    }
+
+    public void broadcast(Integer targetID, Session excludeSession, ServerMessage message) throws IOException {
+        broadcast(targetID, excludeSession == null ? null : keyOf(excludeSession), null, message);
+    }
 
-            if (!username.equals(excludeUserName)) {
-                if (connection.session.isOpen()) {
-                    connection.send(new Gson().toJson(message));
-                } else {
-                    removeList.add(username);
+    /**
+     * Sends the message to everyone in the game, on this node and others, except the session
+     * named by {@code excludeKey}, which may be connected to another node. {@code excludeUsername}
+     * can be null when the excluded session is local.
+     */
+    public void broadcast(Integer targetID, String excludeKey, String excludeUsername,
+                          ServerMessage message) throws IOException {
+        var event = new BroadcastEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int recipients = 0;
+        GameStream stream = stream(targetID);
+        synchronized (stream) {
+            var gameConnections = connections.get(targetID);
+            Connection[] targets = gameConnections == null ? new Connection[0] : gameConnections.snapshot();
+            String excludedUsername = excludeUsername;
+            Session excludeSession = sessionFor(excludeKey);
+            for (Connection connection : targets) {
+                if (connection.session != excludeSession) {
+                    recipients++;
+                } else if (excludedUsername == null) {
+                    excludedUsername = connection.username;
                 }
             }
+
+            long sequence = stream.next();
+            message.setSequence(sequence);
+            var outbound = new OutboundMessage(message);
+            stream.record(sequence, excludedUsername, outbound);
+            // Published outside the lock too: an in-process bus delivers to the other node's
+            // stream on this thread, and two nodes doing that at once would deadlock
+            stream.outbox().add(new Outbox.Delivery(targets, excludeSession, outbound,
+                    GameEvent.of(bus.nodeId(), targetID, excludedUsername, excludeKey, message)));
         }
+        flush(stream);
+        broadcastTime.recordSince(start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.gameID = targetID;
+            event.messageType = String.valueOf(message.getServerMessageType());
+            event.recipients = recipients;
+            event.commit();
+        }
+    }
 
-        // Clean up closed connections
-        for (String username : removeList) {
-            gameConnections.remove(username);
+    private void deliverRemote(GameEvent event) {
+        GameStream stream = stream(event.gameID());
+        synchronized (stream) {
+            var gameConnections = connections.get(event.gameID());
+            Connection[] targets = gameConnections == null ? new Connection[0] : gameConnections.snapshot();
+            var outbound = new OutboundMessage(event.message());
+            stream.advanceTo(event.sequence());
+            stream.record(event.sequence(), event.excludedUsername(), outbound);
+            stream.outbox().add(new Outbox.Delivery(targets, sessionFor(event.excludedSession()), outbound));
         }
-        if (gameConnections.isEmpty()) {
-            connections.remove(targetID);
+        try {
+            remoteDeliveryLanes[Math.floorMod(event.gameID(), remoteDeliveryLanes.length)].execute(() -> flush(stream));
+        } catch (RejectedExecutionException e) {
+            log.debug("dropped remote message for game {}: connections closed", event.gameID());
+        }
+    }
+
+    private static Outbox.Delivery toOne(String username, Integer gameID, Session session, OutboundMessage outbound) {
+        return new Outbox.Delivery(new Connection[] {new Connection(username, gameID, session)}, null, outbound);
+    }
+
+    // Sends what the stream's outbox holds, outside the stream lock
+    private void flush(GameStream stream) {
+        var closed = new ArrayList<Session>();
+        stream.outbox().drain(delivery -> send(delivery, closed));
+        for (Session session : closed) {
+            removeSession(session);
         }
     }
 
+    private void send(Outbox.Delivery delivery, List<Session> closed) {
+        for (Connection connection : delivery.targets()) {
+            if (connection.session == delivery.excluded()) {
+                continue;
+            }
+            if (!connection.session.isOpen()) {
+                closed.add(connection.session);
+                continue;
+            }
+            try {
+                connection.send(delivery.message());
+                messagesSent.increment();
+            } catch (IOException e) {
+                // One broken session mustn't keep the message from the rest
+                log.debug("could not send to session={}: {}", connection.session.getRemoteAddress(), e.getMessage());
+            }
+        }
+        if (delivery.published() != null) {
+            bus.publish(delivery.published());
+        }
+    }
+
+    /**
+     * Full scan for sessions that closed without onClose being delivered. Normal disconnects
+     * go through removeSession, so this only needs to run occasionally as a safety net.
+     */
     public void cleanUpClosedConnections() {
-        for (var gameID : connections.keySet()) {
-            var gameConnections = connections.get(gameID);
-            if (gameConnections != null) {
-                var removeList = new ArrayList<String>();
-                for (var entry : gameConnections.entrySet()) {
-                    if (!entry.getValue().session.isOpen()) {
-                        removeList.add(entry.getKey());
-                    }
-                }
-                for (String username : removeList) {
-                    gameConnections.remove(username);
-                }
-                if (gameConnections.isEmpty()) {
-                    connections.remove(gameID);
+        for (Session session : sessions.keySet()) {
+            if (!session.isOpen()) {
+                removeSession(session);
+            }
+        }
+        expireIdleStreams(System.currentTimeMillis());
+    }
+
+    /**
+     * Drops the replay buffers of games with no sessions here and no messages for
+     * {@link #STREAM_IDLE_MILLIS}. The node that owns a game numbers its messages even when
+     * nobody here watches it, so streams can't simply go when the last local session leaves.
+     */
+    void expireIdleStreams(long now) {
+        for (var entry : streams.entrySet()) {
+            GameStream stream = entry.getValue();
+            if (now - stream.lastActive() < STREAM_IDLE_MILLIS || connections.containsKey(entry.getKey())) {
+                continue;
+            }
+            synchronized (stream) {
+                if (!connections.containsKey(entry.getKey())) {
+                    streams.remove(entry.getKey(), stream);
                 }
             }
         }
     }
-}
\ No newline at end of file
+
+    int streamCount() {
+        return streams.size();
+    }
+
+    public synchronized void startSweeping(long periodSeconds) {
+        if (sweeper != null) {
+            return;
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::cleanUpClosedConnections, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stopSweeping() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+            sweeper = null;
+        }
+    }
+
+    /**
+     * Stops the sweeper and the threads that send other nodes' messages to local sessions.
+     */
+    public void close() {
+        stopSweeping();
+        for (ExecutorService lane : remoteDeliveryLanes) {
+            lane.shutdownNow();
+        }
+    }
+
+    private GameStream stream(Integer gameID) {
+        // Numbered from the clock, so a game whose stream expired and came back never reuses a
+        // number a client may still hold and resume from
+        return streams.computeIfAbsent(gameID,
+                id -> new GameStream(REPLAY_CAPACITY, System.currentTimeMillis() * 1000));
+    }
+
+    private void removeFromGame(Integer gameID, Session session) {
+        var lastLocal = new AtomicBoolean();
+        connections.computeIfPresent(gameID, (id, gameConnections) -> {
+            gameConnections.remove(session);
+            if (gameConnections.isEmpty()) {
+                lastLocal.set(true);
+                return null;
+            }
+            return gameConnections;
+        });
+        if (lastLocal.get()) {
+            bus.unsubscribe(gameID);
+        }
+    }
+}
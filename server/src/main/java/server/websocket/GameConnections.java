@@ -0,0 +1,40 @@
+package server.websocket;
+
+import org.eclipse.jetty.websocket.api.Session;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The connections registered for one game, keyed by session so a user can have several tabs
+ * open at once. Writers rebuild a compact array under the lock; broadcasts read the current
+ * array without locking and never see a map that is being modified.
+ */
+class GameConnections {
+    private static final Connection[] EMPTY = new Connection[0];
+
+    private final Map<Session, Connection> bySession = new HashMap<>();
+    private volatile Connection[] snapshot = EMPTY;
+
+    synchronized Connection put(Connection connection) {
+        Connection previous = bySession.put(connection.session, connection);
+        snapshot = bySession.values().toArray(EMPTY);
+        return previous;
+    }
+
+    synchronized Connection remove(Session session) {
+        Connection removed = bySession.remove(session);
+        if (removed != null) {
+            snapshot = bySession.values().toArray(EMPTY);
+        }
+        return removed;
+    }
+
+    Connection[] snapshot() {
+        return snapshot;
+    }
+
+    boolean isEmpty() {
+        return snapshot.length == 0;
+    }
+}
@@ -0,0 +1,86 @@
+package server.websocket;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sequence counter and replay buffer for one game's messages. Only the last {@code capacity}
+ * messages are kept; a client that fell further behind than that has to reload the game.
+ * Callers synchronize on the stream so numbering and sending happen in the same order.
+ */
+class GameStream {
+    private final Entry[] ring;
+    private final Outbox outbox = new Outbox();
+    private final long floor;
+    private long lastSequence = 0;
+    private volatile long lastActive = System.currentTimeMillis();
+
+    GameStream(int capacity) {
+        this(capacity, 0);
+    }
+
+    /**
+     * @param floor numbers this stream assigns itself start above it; numbers it only learns
+     *              from other nodes through {@link #advanceTo} are taken as they are
+     */
+    GameStream(int capacity, long floor) {
+        this.ring = new Entry[capacity];
+        this.floor = floor;
+    }
+
+    Outbox outbox() {
+        return outbox;
+    }
+
+    /**
+     * When a message was last recorded, or the stream created if none has been.
+     */
+    long lastActive() {
+        return lastActive;
+    }
+
+    long lastSequence() {
+        return lastSequence;
+    }
+
+    long next() {
+        lastSequence = Math.max(lastSequence, floor) + 1;
+        return lastSequence;
+    }
+
+    /**
+     * Catches the counter up with a sequence number assigned on another node.
+     */
+    void advanceTo(long sequence) {
+        lastSequence = Math.max(lastSequence, sequence);
+    }
+
+    void record(long sequence, String excludedUsername, OutboundMessage message) {
+        ring[(int) (sequence % ring.length)] = new Entry(sequence, excludedUsername, message);
+        lastActive = System.currentTimeMillis();
+    }
+
+    /**
+     * Messages after {@code since} that were meant for {@code username}, or null if some of
+     * them are no longer buffered (or {@code since} is from another server run).
+     */
+    List<OutboundMessage> since(long since, String username) {
+        if (since > lastSequence || since < lastSequence - ring.length) {
+            return null;
+        }
+        var missed = new ArrayList<OutboundMessage>();
+        for (long sequence = since + 1; sequence <= lastSequence; sequence++) {
+            Entry entry = ring[(int) (sequence % ring.length)];
+            if (entry == null || entry.sequence() != sequence) {
+                return null;
+            }
+            if (!username.equals(entry.excludedUsername())) {
+                missed.add(entry.message());
+            }
+        }
+        return missed;
+    }
+
+    private record Entry(long sequence, String excludedUsername, OutboundMessage message) {
+    }
+}
@@ -0,0 +1,53 @@
+package server.websocket;
+
+import com.google.gson.Gson;
+import org.eclipse.jetty.websocket.api.Session;
+import websocket.BinaryProtocol;
+import websocket.messages.ServerMessage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * A server message plus its encodings. Each wire format is produced at most once, however
+ * many sessions the message is fanned out to or replayed for.
+ */
+class OutboundMessage {
+    private static final Gson GSON = new Gson();
+
+    private final ServerMessage message;
+    private String json;
+    private byte[] binary;
+
+    OutboundMessage(ServerMessage message) {
+        this.message = message;
+    }
+
+    synchronized String json() {
+        if (json == null) {
+            json = GSON.toJson(message);
+        }
+        return json;
+    }
+
+    synchronized byte[] binary() {
+        if (binary == null) {
+            binary = BinaryProtocol.encode(message);
+        }
+        return binary;
+    }
+
+    void sendTo(Session session) throws IOException {
+        if (isBinary(session)) {
+            session.getRemote().sendBytes(ByteBuffer.wrap(binary()));
+        } else {
+            session.getRemote().sendString(json());
+        }
+    }
+
+    static boolean isBinary(Session session) {
+        List<String> format = session.getUpgradeRequest().getParameterMap().get(BinaryProtocol.FORMAT_PARAMETER);
+        return format != null && format.contains(BinaryProtocol.BINARY_FORMAT);
+    }
+}
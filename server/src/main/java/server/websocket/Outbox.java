@@ -0,0 +1,51 @@
+package server.websocket;
+
+import org.eclipse.jetty.websocket.api.Session;
+import server.bus.GameEvent;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Messages waiting to be sent to one game's sessions, in the order they were numbered. They
+ * are queued under the stream lock, then sent and published to other nodes after it is
+ * released: whichever thread queued a message sends everything waiting unless another thread
+ * already is, so a slow client holds up that thread but never the lock, and sends never
+ * overtake each other.
+ */
+class Outbox {
+    private final ConcurrentLinkedQueue<Delivery> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    /**
+     * One message for {@code targets}, except {@code excluded}, which may be null, and then for
+     * other nodes as {@code published} unless that is null.
+     */
+    record Delivery(Connection[] targets, Session excluded, OutboundMessage message, GameEvent published) {
+        Delivery(Connection[] targets, Session excluded, OutboundMessage message) {
+            this(targets, excluded, message, null);
+        }
+    }
+
+    interface Sender {
+        void send(Delivery delivery);
+    }
+
+    void add(Delivery delivery) {
+        queue.add(delivery);
+    }
+
+    void drain(Sender sender) {
+        // Checked again after letting go, in case a message arrived as the last drainer finished
+        while (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+            try {
+                Delivery delivery;
+                while ((delivery = queue.poll()) != null) {
+                    sender.send(delivery);
+                }
+            } finally {
+                draining.set(false);
+            }
+        }
+    }
+}
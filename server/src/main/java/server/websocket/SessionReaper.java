@@ -0,0 +1,119 @@
+package server.websocket;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Pings quiet sessions and disconnects the ones that stay silent past the idle timeout.
+ * Any frame from the peer (including a pong) counts as activity. Sessions are checked via a
+ * timer wheel, so a tick only touches the sessions that are actually due.
+ */
+public class SessionReaper {
+    private static final Logger log = LoggerFactory.getLogger(SessionReaper.class);
+    private static final long TICK_MILLIS = 250;
+    private static final int BUCKETS = 512;
+
+    private final long pingIntervalMillis;
+    private final long idleTimeoutMillis;
+    private final Consumer<Session> onDead;
+    private final ConcurrentHashMap<Session, Long> lastActivity = new ConcurrentHashMap<>();
+    private final TimerWheel<Session> wheel;
+    private ScheduledExecutorService ticker;
+
+    public SessionReaper(long pingIntervalMillis, long idleTimeoutMillis, Consumer<Session> onDead) {
+        this.pingIntervalMillis = pingIntervalMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.onDead = onDead;
+        this.wheel = new TimerWheel<>(TICK_MILLIS, BUCKETS, System.currentTimeMillis());
+    }
+
+    public void track(Session session) {
+        long now = System.currentTimeMillis();
+        lastActivity.put(session, now);
+        wheel.schedule(session, now + pingIntervalMillis);
+    }
+
+    public void touch(Session session) {
+        lastActivity.replace(session, System.currentTimeMillis());
+    }
+
+    public void untrack(Session session) {
+        lastActivity.remove(session);
+    }
+
+    public int size() {
+        return lastActivity.size();
+    }
+
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+
+    void tick() {
+        long now = System.currentTimeMillis();
+        for (Session session : wheel.advance(now)) {
+            try {
+                check(session, now);
+            } catch (RuntimeException e) {
+                log.warn("could not check session: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void check(Session session, long now) {
+        Long last = lastActivity.get(session);
+        if (last == null) {
+            return;
+        }
+        long idle = now - last;
+        if (!session.isOpen() || idle >= idleTimeoutMillis) {
+            reap(session);
+        } else if (idle >= pingIntervalMillis) {
+            ping(session);
+            wheel.schedule(session, now + Math.min(pingIntervalMillis, idleTimeoutMillis - idle));
+        } else {
+            wheel.schedule(session, last + pingIntervalMillis);
+        }
+    }
+
+    private void ping(Session session) {
+        try {
+            session.getRemote().sendPing(ByteBuffer.allocate(0));
+        } catch (Exception e) {
+            // A failed ping is handled like silence: the idle timeout will reap the session
+        }
+    }
+
+    private void reap(Session session) {
+        untrack(session);
+        try {
+            session.disconnect();
+        } catch (Exception e) {
+            // Already gone
+        }
+        onDead.accept(session);
+    }
+}
@@ -0,0 +1,63 @@
+package server.websocket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Hashed timer wheel: scheduling is O(1) and each tick only looks at one bucket, so checking
+ * tens of thousands of sessions for timeouts does not mean scanning all of them every tick.
+ * Items due further out than one turn of the wheel simply stay in their bucket for later turns.
+ */
+class TimerWheel<T> {
+    private final long tickMillis;
+    private final List<ConcurrentLinkedQueue<Timeout<T>>> buckets;
+    private volatile long lastTick;
+
+    TimerWheel(long tickMillis, int bucketCount, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.buckets = new ArrayList<>(bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            buckets.add(new ConcurrentLinkedQueue<>());
+        }
+        this.lastTick = nowMillis / tickMillis;
+    }
+
+    void schedule(T item, long deadlineMillis) {
+        // First tick at or after the deadline, so the item is due by the time its bucket is swept
+        long tick = Math.max((deadlineMillis + tickMillis - 1) / tickMillis, lastTick + 1);
+        buckets.get((int) (tick % buckets.size())).add(new Timeout<>(item, deadlineMillis));
+    }
+
+    /**
+     * Moves the wheel up to {@code nowMillis} and returns every item whose deadline has passed.
+     * Only one thread should advance the wheel; any thread may schedule.
+     */
+    List<T> advance(long nowMillis) {
+        var due = new ArrayList<T>();
+        long previousTick = lastTick;
+        long currentTick = Math.max(previousTick, nowMillis / tickMillis);
+        // Publish the new tick first so concurrent schedule() calls land in buckets not yet swept
+        lastTick = currentTick;
+        long ticks = Math.min(currentTick - previousTick, buckets.size());
+        for (long i = 1; i <= ticks; i++) {
+            var bucket = buckets.get((int) ((previousTick + i) % buckets.size()));
+            int pending = bucket.size();
+            for (int j = 0; j < pending; j++) {
+                Timeout<T> timeout = bucket.poll();
+                if (timeout == null) {
+                    break;
+                }
+                if (timeout.deadlineMillis() <= nowMillis) {
+                    due.add(timeout.item());
+                } else {
+                    bucket.add(timeout);
+                }
+            }
+        }
+        return due;
+    }
+
+    private record Timeout<T>(T item, long deadlineMillis) {
+    }
+}
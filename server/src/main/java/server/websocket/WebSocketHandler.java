@@ -5,10 +5,22 @@ import chess.ChessMove;
 import chess.InvalidMoveException;
 import com.google.gson.Gson;
 import dataaccess.*;
+import metrics.MetricsRegistry;
 import model.AuthData;
 import model.GameData;
+import model.GameHistoryEvent;
 import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.api.annotations.*;
+import org.eclipse.jetty.websocket.api.extensions.Frame;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import profiling.CommandEvent;
+import server.bus.GameEventBus;
+import server.bus.GameOwnership;
+import server.bus.InProcessGameEventBus;
+import server.bus.NodeMessage;
+import service.GameHistory;
+import websocket.BinaryProtocol;
 import websocket.commands.*;
 import websocket.messages.ErrorMessage;
 import websocket.messages.LoadGameMessage;
@@ -17,105 +29,342 @@ import websocket.messages.ServerMessage;
 
 import java.io.IOException;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 
 @WebSocket
 public class WebSocketHandler {
-    private final ConnectionManager connections = new ConnectionManager();
+    private static final Logger log = LoggerFactory.getLogger(WebSocketHandler.class);
+    // Raw message bodies get their own logger so they can be switched on without the rest
+    private static final Logger bodyLog = LoggerFactory.getLogger(WebSocketHandler.class.getName() + ".body");
+    public static final int DEFAULT_BODY_SAMPLE_EVERY = 100;
+
+    private static final long SWEEP_PERIOD_SECONDS = 60;
+    private static final int MAX_WRITE_ATTEMPTS = 5;
+    private static final int NODE_MESSAGE_LANES = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private static final int GAME_LOCK_STRIPES = 256;
+
+    private final ConnectionManager connections;
     private final Gson gson = new Gson();
     private final GameDAO gameDAO;
     private final AuthDAO authDAO;
+    private final GameEventBus bus;
+    // Null on a single node, which then owns every game
+    private final GameOwnership ownership;
+    // Null when game history isn't kept
+    private final GameHistory history;
+    // Commands for a game run one at a time under its stripe. A fixed set, so the locks don't
+    // pile up with every game the node has ever seen; games sharing a stripe just queue.
+    private final Object[] gameLocks = new Object[GAME_LOCK_STRIPES];
+    // Messages from other nodes run here rather than on the bus's reader thread. Each game
+    // always uses the same lane, so its messages run in the order they arrived.
+    private final ExecutorService[] nodeMessageLanes = new ExecutorService[NODE_MESSAGE_LANES];
+    private final AtomicLong messagesReceived = new AtomicLong();
+    private volatile int bodySampleEvery = DEFAULT_BODY_SAMPLE_EVERY;
+
+    public static final long DEFAULT_PING_INTERVAL_MILLIS = 30_000;
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 90_000;
+
+    private final SessionReaper reaper;
 
     public WebSocketHandler(GameDAO gameDAO, AuthDAO authDAO) {
-        System.out.println("Initializing WebSocketHandler");
+        this(gameDAO, authDAO, DEFAULT_PING_INTERVAL_MILLIS, DEFAULT_IDLE_TIMEOUT_MILLIS);
+    }
+
+    public WebSocketHandler(GameDAO gameDAO, AuthDAO authDAO, long pingIntervalMillis, long idleTimeoutMillis) {
+        this(gameDAO, authDAO, pingIntervalMillis, idleTimeoutMillis, new InProcessGameEventBus(), null);
+    }
+
+    /**
+     * @param ownership decides which node runs commands for each game; its node ID must be the
+     *                  bus's. Pass null when this is the only node.
+     */
+    public WebSocketHandler(GameDAO gameDAO, AuthDAO authDAO, long pingIntervalMillis, long idleTimeoutMillis,
+                            GameEventBus bus, GameOwnership ownership) {
+        this(gameDAO, authDAO, pingIntervalMillis, idleTimeoutMillis, bus, ownership, null);
+    }
+
+    /**
+     * @param history where moves, resignations and departures are recorded, or null to not
+     *                record them
+     */
+    public WebSocketHandler(GameDAO gameDAO, AuthDAO authDAO, long pingIntervalMillis, long idleTimeoutMillis,
+                            GameEventBus bus, GameOwnership ownership, GameHistory history) {
+        this.connections = new ConnectionManager(bus);
         this.gameDAO = gameDAO;
         this.authDAO = authDAO;
+        this.bus = bus;
+        this.ownership = ownership;
+        this.history = history;
+        for (int i = 0; i < gameLocks.length; i++) {
+            gameLocks[i] = new Object();
+        }
+        for (int i = 0; i < nodeMessageLanes.length; i++) {
+            String name = "node-messages-" + i;
+            nodeMessageLanes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        bus.setDirectListener(message -> nodeMessageLanes[Math.floorMod(message.gameID(), nodeMessageLanes.length)]
+                .execute(() -> onNodeMessage(message)));
+        this.reaper = new SessionReaper(pingIntervalMillis, idleTimeoutMillis, connections::removeSession);
+        connections.startSweeping(SWEEP_PERIOD_SECONDS);
+        reaper.start();
+    }
+
+    /**
+     * Stops the reaper, the connection manager's threads and the node message lanes. Close the
+     * bus first, so no more node messages arrive for them.
+     */
+    public void close() {
+        reaper.stop();
+        connections.close();
+        for (ExecutorService lane : nodeMessageLanes) {
+            lane.shutdownNow();
+        }
     }
 
     @OnWebSocketConnect
     public void onConnect(Session session) {
-        System.out.println("WebSocket connection opened: " + session);
+        log.debug("ws open session={}", session.getRemoteAddress());
+        reaper.track(session);
     }
 
     @OnWebSocketClose
     public void onClose(Session session, int statusCode, String reason) {
-        System.out.println("WebSocket connection closed: " + session + " with status code " + statusCode + " and reason " + reason);
-        connections.cleanUpClosedConnections();
+        log.debug("ws close session={} status={} reason={}", session.getRemoteAddress(), statusCode, reason);
+        reaper.untrack(session);
+        connections.removeSession(session);
+    }
+
+    @OnWebSocketFrame
+    public void onFrame(Session session, Frame frame) {
+        reaper.touch(session);
+    }
+
+    /**
+     * Logs one in every {@code every} message bodies at DEBUG on the {@code WebSocketHandler.body}
+     * logger. Bodies are too many and too large to log in full under load.
+     */
+    public void setBodySampleEvery(int every) {
+        this.bodySampleEvery = Math.max(1, every);
     }
 
     @OnWebSocketMessage
     public void onMessage(Session session, String message) throws IOException {
-        System.out.println("Received message: " + message);
+        if (bodyLog.isDebugEnabled() && messagesReceived.getAndIncrement() % bodySampleEvery == 0) {
+            bodyLog.debug("ws message body={}", message);
+        }
+        try {
+            dispatch(session, parseCommand(message));
+        } catch (Exception e) {
+            log.warn("ws command failed: {}", e.getMessage());
+            MetricsRegistry.global().counter("chess_ws_command_errors_total",
+                    "WebSocket commands that failed with an unexpected error").increment();
+            sendError(session, "Error processing command: " + e.getMessage());
+        }
+    }
+
+    @OnWebSocketMessage
+    public void onBinaryMessage(Session session, byte[] data, int offset, int length) throws IOException {
+        try {
+            dispatch(session, BinaryProtocol.decodeCommand(data, offset, length));
+        } catch (Exception e) {
+            log.warn("ws command failed: {}", e.getMessage());
+            MetricsRegistry.global().counter("chess_ws_command_errors_total",
+                    "WebSocket commands that failed with an unexpected error").increment();
+            sendError(session, "Error processing command: " + e.getMessage());
+        }
+    }
+
+    private UserGameCommand parseCommand(String message) {
+        UserGameCommand command = gson.fromJson(message, UserGameCommand.class);
+        return switch (command.getCommandType()) {
+            case MAKE_MOVE -> gson.fromJson(message, MakeMoveCommand.class);
+            case RESUME -> gson.fromJson(message, ResumeCommand.class);
+            default -> command;
+        };
+    }
+
+    private void dispatch(Session session, UserGameCommand command) throws Exception {
+        log.debug("ws command type={} game={}", command.getCommandType(), command.getGameID());
+        var event = new CommandEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            dispatchCommand(session, command, event);
+        } finally {
+            recordCommand(command, "local", start, event);
+        }
+    }
+
+    private void dispatchCommand(Session session, UserGameCommand command, CommandEvent event) throws Exception {
+        switch (command.getCommandType()) {
+            case CONNECT -> handleConnect(command, session);
+            case MAKE_MOVE, LEAVE, RESIGN -> routeToOwner(session, command, event);
+            case RESUME -> handleResume((ResumeCommand) command, session);
+            default -> sendError(session, "Invalid command type");
+        }
+    }
+
+    /**
+     * Runs a state-changing command here if this node owns the game, otherwise forwards it to
+     * the owner, which answers this session through the bus.
+     */
+    private void routeToOwner(Session session, UserGameCommand command, CommandEvent event) throws Exception {
+        Requester requester = new Requester(session, connections.keyOf(session), null);
+        String owner = ownerOf(command.getGameID(), requester);
+        if (owner == null) {
+            return;
+        }
+        if (ownership == null || owner.equals(ownership.nodeId())) {
+            execute(requester, command, event);
+        } else {
+            log.debug("ws forward type={} game={} owner={}", command.getCommandType(), command.getGameID(), owner);
+            bus.send(new NodeMessage(bus.nodeId(), owner, NodeMessage.Kind.COMMAND, requester.key(),
+                    command.getGameID(), gson.toJson(command)));
+        }
+    }
+
+    private String ownerOf(Integer gameID, Requester requester) {
+        if (ownership == null || gameID == null) {
+            return "";
+        }
         try {
-            UserGameCommand command = gson.fromJson(message, UserGameCommand.class);
-            System.out.println("Command type: " + command.getCommandType());
+            return ownership.ownerOf(gameID);
+        } catch (DataAccessException e) {
+            log.warn("could not resolve owner of game={}: {}", gameID, e.getMessage());
+            sendError(requester, "Error accessing data");
+            return null;
+        }
+    }
+
+    private void execute(Requester requester, UserGameCommand command, CommandEvent event) throws Exception {
+        Integer gameID = command.getGameID();
+        if (command.getCommandType() != UserGameCommand.CommandType.CONNECT) {
+            // Keep the player's next lobby reads on the primary so they see their own move
+            ReadRouting.recordWrite(command.getAuthToken());
+        }
+        synchronized (gameLocks[Math.floorMod(gameID == null ? -1 : gameID, gameLocks.length)]) {
             switch (command.getCommandType()) {
-                case CONNECT -> {
-                    System.out.println("Handling CONNECT command");
-                    handleConnect(command, session);
-                }
-                case MAKE_MOVE -> {
-                    System.out.println("Handling MAKE_MOVE command");
-                    MakeMoveCommand makeMoveCommand = gson.fromJson(message, MakeMoveCommand.class);
-                    handleMakeMove(session, makeMoveCommand);
-                }
-                case LEAVE -> {
-                    System.out.println("Handling LEAVE command");
-                    handleLeave(command, session);
+                case CONNECT -> announceJoin(command, requester);
+                case MAKE_MOVE -> retryOnConflict(requester, event,
+                        () -> tryMakeMove(requester, (MakeMoveCommand) command, event));
+                case LEAVE -> retryOnConflict(requester, event, () -> tryLeave(command, requester));
+                case RESIGN -> retryOnConflict(requester, event, () -> tryResign(command, requester));
+                default -> sendError(requester, "Invalid command type");
+            }
+        }
+    }
+
+    /**
+     * Runs a command attempt until it completes. An attempt returns false when its write lost to
+     * a concurrent one (an HTTP join, say), and is then redone against the game as it is now.
+     */
+    private void retryOnConflict(Requester requester, CommandEvent event, Attempt attempt) throws Exception {
+        for (int i = 0; i < MAX_WRITE_ATTEMPTS; i++) {
+            event.attempts++;
+            if (attempt.run()) {
+                return;
+            }
+            log.debug("ws write conflict, retrying attempt={}", i + 1);
+        }
+        sendError(requester, "Error: game is busy, try again");
+    }
+
+    private interface Attempt {
+        boolean run() throws Exception;
+    }
+
+    private void onNodeMessage(NodeMessage message) {
+        try {
+            switch (message.kind()) {
+                case COMMAND -> {
+                    var requester = new Requester(null, message.sessionKey(), message);
+                    if (ownership != null && !ownership.isLocal(message.gameID())) {
+                        // Lost the lease while the command was in flight; the client can retry
+                        sendError(requester, "Error: game is moving to another server, try again");
+                        return;
+                    }
+                    UserGameCommand command = parseCommand(message.payload());
+                    var event = new CommandEvent();
+                    event.begin();
+                    long start = System.nanoTime();
+                    try {
+                        execute(requester, command, event);
+                    } finally {
+                        recordCommand(command, "forwarded", start, event);
+                    }
                 }
-                case RESIGN -> {
-                    System.out.println("Handling RESIGN command");
-                    handleResign(command, session);
+                case ERROR -> {
+                    Session session = connections.sessionFor(message.sessionKey());
+                    if (session != null) {
+                        sendError(session, message.payload());
+                    }
                 }
-                default -> {
-                    System.out.println("Invalid command type received");
-                    sendError(session, "Invalid command type");
+                case LEFT -> {
+                    Session session = connections.sessionFor(message.sessionKey());
+                    if (session != null) {
+                        connections.remove(message.gameID(), session);
+                    }
                 }
             }
         } catch (Exception e) {
-            System.out.println("Error processing command: " + e.getMessage());
-            sendError(session, "Error processing command: " + e.getMessage());
+            log.warn("node message from={} failed: {}", message.origin(), e.getMessage());
         }
     }
 
+    private static void recordCommand(UserGameCommand command, String origin, long startNanos, CommandEvent event) {
+        String type = command.getCommandType() == null ? "UNKNOWN" : command.getCommandType().name();
+        MetricsRegistry.global().histogram("chess_ws_command_seconds", "Time to handle a WebSocket command",
+                "command", type, "origin", origin).recordSince(startNanos);
+        event.end();
+        if (event.shouldCommit()) {
+            event.command = type;
+            event.gameID = command.getGameID() == null ? -1 : command.getGameID();
+            event.origin = origin;
+            event.commit();
+        }
+    }
 
-    private Optional<UserGameContext> validateSession(String authToken, Integer gameID, Session session) {
+    private Optional<UserGameContext> validateSession(String authToken, Integer gameID, Requester requester) {
         try {
             // Validate auth token
             AuthData authData = authDAO.getAuth(authToken);
             if (authData == null) {
-                System.out.println("Invalid auth token");
-                sendError(session, "Error: invalid auth token");
+                sendError(requester, "Error: invalid auth token");
                 return Optional.empty();
             }
 
             // Validate game ID
             if (gameID == null || gameID < 0) {
-                System.out.println("Invalid game ID");
-                sendError(session, "Error: invalid game ID");
+                sendError(requester, "Error: invalid game ID");
                 return Optional.empty();
             }
 
             GameData gameData = gameDAO.getGame(gameID);
             if (gameData == null) {
-                System.out.println("Game not found");
-                sendError(session, "Error: game not found");
+                sendError(requester, "Error: game not found");
                 return Optional.empty();
             }
 
             return Optional.of(new UserGameContext(authData, gameData));
         } catch (DataAccessException e) {
-            System.out.println("Data access error: " + e.getMessage());
-            sendError(session, "Error accessing data");
+            log.warn("data access failed for game={}: {}", gameID, e.getMessage());
+            sendError(requester, "Error accessing data");
             return Optional.empty();
         }
     }
 
     private void handleConnect(UserGameCommand command, Session session) throws Exception {
-        System.out.println("Executing handleConnect");
         String authToken = command.getAuthToken();
         Integer gameID = command.getGameID();
 
-        Optional<UserGameContext> contextOpt = validateSession(authToken, gameID, session);
+        Requester requester = new Requester(session, connections.keyOf(session), null);
+        Optional<UserGameContext> contextOpt = validateSession(authToken, gameID, requester);
         if (contextOpt.isEmpty()){
             return;
         }
@@ -125,21 +374,62 @@ public class WebSocketHandler {
         GameData gameData = context.getGameData();
 
         String username = authData.username();
-        String playerRole = determinePlayerRole(gameData, username);
 
-        connections.add(username, gameID, session);
         LoadGameMessage gameMessage = new LoadGameMessage(
                 ServerMessage.ServerMessageType.LOAD_GAME,
                 gameData.game()
         );
-        session.getRemote().sendString(gson.toJson(gameMessage));
+        connections.connect(username, gameID, session, gameMessage);
+
+        // Only the owner numbers the game's messages, so it sends the join notification
+        String owner = ownerOf(gameID, requester);
+        if (owner == null) {
+            return;
+        }
+        if (ownership == null || owner.equals(ownership.nodeId())) {
+            broadcastJoin(requester, gameData, username);
+        } else {
+            bus.send(new NodeMessage(bus.nodeId(), owner, NodeMessage.Kind.COMMAND, requester.key(),
+                    gameID, gson.toJson(command)));
+        }
+    }
+
+    private void announceJoin(UserGameCommand command, Requester requester) throws IOException {
+        Optional<UserGameContext> contextOpt = validateSession(command.getAuthToken(), command.getGameID(), requester);
+        if (contextOpt.isPresent()) {
+            UserGameContext context = contextOpt.get();
+            broadcastJoin(requester, context.getGameData(), context.getAuthData().username());
+        }
+    }
 
-        // Notify other players
+    private void broadcastJoin(Requester requester, GameData gameData, String username) throws IOException {
         NotificationMessage notification = new NotificationMessage(
                 ServerMessage.ServerMessageType.NOTIFICATION,
-                username + " has joined the game as " + playerRole
+                username + " has joined the game as " + determinePlayerRole(gameData, username)
         );
-        connections.broadcast(gameID, username, notification);
+        connections.broadcast(gameData.gameID(), requester.key(), username, notification);
+    }
+
+    private void handleResume(ResumeCommand command, Session session) throws IOException {
+        Integer gameID = command.getGameID();
+
+        Requester requester = new Requester(session, connections.keyOf(session), null);
+        Optional<UserGameContext> contextOpt = validateSession(command.getAuthToken(), gameID, requester);
+        if (contextOpt.isEmpty()) {
+            return;
+        }
+
+        UserGameContext context = contextOpt.get();
+        String username = context.getAuthData().username();
+
+        // Too far behind (or the server restarted): fall back to a full reload
+        if (!connections.resume(username, gameID, session, command.getLastSequence())) {
+            LoadGameMessage gameMessage = new LoadGameMessage(
+                    ServerMessage.ServerMessageType.LOAD_GAME,
+                    context.getGameData().game()
+            );
+            connections.connect(username, gameID, session, gameMessage);
+        }
     }
 
     private String determinePlayerRole(GameData gameData, String username) {
@@ -152,15 +442,16 @@ public class WebSocketHandler {
         }
     }
 
-    private void handleMakeMove(Session session, MakeMoveCommand command) throws IOException, InvalidMoveException {
-        System.out.println("Executing handleMakeMove");
+    private boolean tryMakeMove(Requester requester, MakeMoveCommand command, CommandEvent event)
+            throws IOException, InvalidMoveException {
+        long phaseStart = System.nanoTime();
         String authToken = command.getAuthToken();
         Integer gameID = command.getGameID();
         ChessMove move = command.getMove();
 
-        Optional<UserGameContext> contextOpt = validateSession(authToken, gameID, session);
+        Optional<UserGameContext> contextOpt = validateSession(authToken, gameID, requester);
         if (contextOpt.isEmpty()){
-            return;
+            return true;
         }
 
         UserGameContext context = contextOpt.get();
@@ -171,9 +462,8 @@ public class WebSocketHandler {
 
         // Check if the game is already over
         if (gameData.game().isGameOver()) {
-            System.out.println("Game has already ended");
-            sendError(session, "Game has already ended");
-            return;
+            sendError(requester, "Game has already ended");
+            return true;
         }
 
         // Determine current turn
@@ -184,19 +474,18 @@ public class WebSocketHandler {
         String opponentPlayer = (turn == ChessGame.TeamColor.WHITE) ? blackUser : whiteUser;
 
         if (!username.equals(currentPlayer)) {
-            System.out.println("It is not your turn");
-            sendError(session, "Error: it is not your turn");
-            return;
+            sendError(requester, "Error: it is not your turn");
+            return true;
         }
 
         // Check if the move is legal before calling makeMove()
         var legalMoves = gameData.game().validMoves(move.getStartPosition());
         if (legalMoves == null || !legalMoves.contains(move)) {
-            System.out.println("Invalid move");
-            sendError(session, "Error: invalid move");
-            return;
+            sendError(requester, "Error: invalid move");
+            return true;
         }
 
+        long validated = System.nanoTime();
         gameData.game().makeMove(move);
         turn = gameData.game().getTeamTurn();
 
@@ -217,36 +506,47 @@ public class WebSocketHandler {
             );
         }
 
-        System.out.println("Move made: " + move + ", notification: " + notificationMsg);
+        log.debug("move game={} user={} move={}", gameID, username, move);
 
+        long computed = System.nanoTime();
         try {
-            // Update the game in the database
-            gameDAO.updateGame(gameData);
+            // Update the game in the database unless it changed since we read it
+            if (!gameDAO.updateGameIfUnchanged(gameData)) {
+                event.validation += validated - phaseStart;
+                event.compute += computed - validated;
+                event.persist += System.nanoTime() - computed;
+                return false;
+            }
         } catch (DataAccessException e) {
-            System.out.println("Could not update game");
-            sendError(session, "Error: could not update game");
-            return;
+            log.warn("could not save move game={}: {}", gameID, e.getMessage());
+            sendError(requester, "Error: could not update game");
+            return true;
         }
+        recordHistory(gameID, new GameHistoryEvent.MoveMade(username, move));
+        long persisted = System.nanoTime();
 
         // Broadcast notification
         NotificationMessage notif = new NotificationMessage(ServerMessage.ServerMessageType.NOTIFICATION, notificationMsg);
-        connections.broadcast(gameID, username, notif);
+        connections.broadcast(gameID, requester.key(), username, notif);
 
         // Broadcast updated board
         LoadGameMessage loadMsg = new LoadGameMessage(ServerMessage.ServerMessageType.LOAD_GAME, gameData.game());
         connections.broadcast(gameID, null, loadMsg);
 
-        System.out.println("Move and board update broadcasted");
+        event.validation += validated - phaseStart;
+        event.compute += computed - validated;
+        event.persist += persisted - computed;
+        event.broadcast += System.nanoTime() - persisted;
+        return true;
     }
 
-    private void handleLeave(UserGameCommand command, Session session) {
-        System.out.println("Executing handleLeave");
+    private boolean tryLeave(UserGameCommand command, Requester requester) {
         String authToken = command.getAuthToken();
         Integer gameID = command.getGameID();
 
-        Optional<UserGameContext> contextOpt = validateSession(authToken, gameID, session);
+        Optional<UserGameContext> contextOpt = validateSession(authToken, gameID, requester);
         if (contextOpt.isEmpty()){
-            return;
+            return true;
         }
 
         UserGameContext context = contextOpt.get();
@@ -271,39 +571,47 @@ public class WebSocketHandler {
 
         if (wasPlayer) {
             // Create updated game data with the player removed
-            gameData = new GameData(gameID, whiteUser, blackUser, gameData.gameName(), gameData.game());
+            gameData = new GameData(gameID, whiteUser, blackUser, gameData.gameName(), gameData.game(),
+                    gameData.version());
             try {
-                gameDAO.updateGame(gameData);
+                if (!gameDAO.updateGameIfUnchanged(gameData)) {
+                    return false;
+                }
             } catch (DataAccessException e) {
-                System.out.println("Could not update game after leave");
-                sendError(session, "Error: could not update game after leave");
-                return;
+                log.warn("could not save leave game={}: {}", gameID, e.getMessage());
+                sendError(requester, "Error: could not update game after leave");
+                return true;
             }
+            recordHistory(gameID, new GameHistoryEvent.Left(username));
         }
 
-        connections.remove(gameID, username);
+        if (requester.session() != null) {
+            connections.remove(gameID, requester.session());
+        } else {
+            bus.send(requester.forwarded().reply(NodeMessage.Kind.LEFT, null));
+        }
 
         NotificationMessage notification = new NotificationMessage(
                 ServerMessage.ServerMessageType.NOTIFICATION,
                 username + " has left the game."
         );
         try {
-            connections.broadcast(gameID, username, notification);
+            connections.broadcast(gameID, requester.key(), username, notification);
         } catch (IOException e) {
-            System.err.println("Error broadcasting leave notification: " + e.getMessage());
+            log.warn("could not broadcast leave game={}: {}", gameID, e.getMessage());
         }
 
-        System.out.println("Player " + username + " left the game");
+        log.debug("leave game={} user={}", gameID, username);
+        return true;
     }
 
-    private void handleResign(UserGameCommand command, Session session) {
-        System.out.println("Executing handleResign");
+    private boolean tryResign(UserGameCommand command, Requester requester) {
         String authToken = command.getAuthToken();
         Integer gameID = command.getGameID();
 
-        Optional<UserGameContext> contextOpt = validateSession(authToken, gameID, session);
+        Optional<UserGameContext> contextOpt = validateSession(authToken, gameID, requester);
         if (contextOpt.isEmpty()) {
-            return;
+            return true;
         }
 
         UserGameContext context = contextOpt.get();
@@ -315,28 +623,29 @@ public class WebSocketHandler {
         // Verify that the user is actually a player in the game
         boolean isPlayer = username.equals(gameData.whiteUsername()) || username.equals(gameData.blackUsername());
         if (!isPlayer) {
-            System.out.println("User is not a player, cannot resign");
-            sendError(session, "You can't resign as an observer.");
-            return;
+            sendError(requester, "You can't resign as an observer.");
+            return true;
         }
 
         // Check if the game is already over
         if (gameData.game().isGameOver()) {
-            System.out.println("Game is already over");
-            sendError(session, "Game is already over");
-            return;
+            sendError(requester, "Game is already over");
+            return true;
         }
 
         // Game over due to resignation
         gameData.game().setGameOver();
 
         try {
-            gameDAO.updateGame(gameData);
+            if (!gameDAO.updateGameIfUnchanged(gameData)) {
+                return false;
+            }
         } catch (DataAccessException e) {
-            System.out.println("Could not update game after resign");
-            sendError(session, "Error: could not update game after resign");
-            return;
+            log.warn("could not save resign game={}: {}", gameID, e.getMessage());
+            sendError(requester, "Error: could not update game after resign");
+            return true;
         }
+        recordHistory(gameID, new GameHistoryEvent.Resigned(username));
 
         // Broadcast resignation notification to all players
         NotificationMessage notificationMessage = new NotificationMessage(
@@ -346,22 +655,51 @@ public class WebSocketHandler {
         try {
             connections.broadcast(gameID, null, notificationMessage);
         } catch (IOException e) {
-            System.err.println("Error broadcasting resign notification: " + e.getMessage());
+            log.warn("could not broadcast resign game={}: {}", gameID, e.getMessage());
+        }
+
+        log.debug("resign game={} user={}", gameID, username);
+        return true;
+    }
+
+    // Commands for a game run one at a time under its lock, so its events are logged in the
+    // order the writes happened
+    private void recordHistory(int gameID, GameHistoryEvent event) {
+        if (history == null) {
+            return;
         }
+        try {
+            history.record(gameID, event);
+        } catch (DataAccessException | RuntimeException e) {
+            log.warn("could not record history of game={}: {}", gameID, e.getMessage());
+        }
+    }
 
-        System.out.println("Player " + username + " resigned");
+    private void sendError(Requester requester, String errorMessage) {
+        if (requester.session() != null) {
+            sendError(requester.session(), errorMessage);
+        } else {
+            bus.send(requester.forwarded().reply(NodeMessage.Kind.ERROR, errorMessage));
+        }
     }
 
     private void sendError(Session session, String errorMessage) {
         try {
             ErrorMessage error = new ErrorMessage(ServerMessage.ServerMessageType.ERROR, errorMessage);
-            session.getRemote().sendString(gson.toJson(error));
+            new OutboundMessage(error).sendTo(session);
         } catch (Exception e) {
-            System.err.println("Error sending message: " + e.getMessage());
+            log.debug("could not send error to session: {}", e.getMessage());
         }
     }
 
 
+    /**
+     * Where a command came from: a session on this node, or a session on another node whose
+     * command was forwarded here in {@code forwarded}.
+     */
+    private record Requester(Session session, String key, NodeMessage forwarded) {
+    }
+
     private static class UserGameContext {
         private final AuthData authData;
         private final GameData gameData;
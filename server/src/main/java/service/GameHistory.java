@@ -0,0 +1,109 @@
+package service;
+
+import dataaccess.DataAccessException;
+import dataaccess.GameEventDAO;
+import dataaccess.GameSnapshot;
+import dataaccess.LoggedEvent;
+import model.GameData;
+import model.GameHistoryEvent;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Records what happens to each game as an ordered event log and rebuilds games from it. Every
+ * {@code snapshotEvery} events the game is snapshotted, so a rebuild replays at most that many
+ * events on top of the latest snapshot, however long the game.
+ */
+public class GameHistory {
+    public static final int DEFAULT_SNAPSHOT_EVERY = 20;
+    private static final int MAX_APPEND_ATTEMPTS = 5;
+    private static final int FEED_PAGE_SIZE = 500;
+
+    private final GameEventDAO eventDAO;
+    private final int snapshotEvery;
+
+    public GameHistory(GameEventDAO eventDAO) {
+        this(eventDAO, DEFAULT_SNAPSHOT_EVERY);
+    }
+
+    public GameHistory(GameEventDAO eventDAO, int snapshotEvery) {
+        this.eventDAO = eventDAO;
+        this.snapshotEvery = snapshotEvery;
+    }
+
+    /**
+     * Appends events to the end of the game's log.
+     */
+    public void record(int gameID, GameHistoryEvent... events) throws DataAccessException {
+        for (int i = 0; i < MAX_APPEND_ATTEMPTS; i++) {
+            long last = eventDAO.lastSequence(gameID);
+            if (eventDAO.append(gameID, last, List.of(events))) {
+                if ((last + events.length) / snapshotEvery > last / snapshotEvery) {
+                    snapshot(gameID);
+                }
+                return;
+            }
+        }
+        throw new DataAccessException("Error recording game history: log for game " + gameID + " is busy");
+    }
+
+    /**
+     * The game as its history leaves it, or null if its history doesn't start with the game's
+     * creation (games from before history was kept, or whose creation failed to record).
+     */
+    public GameData rebuild(int gameID) throws DataAccessException {
+        return replay(gameID).game();
+    }
+
+    /**
+     * Every event of the game in order, for replaying it move by move.
+     */
+    public List<LoggedEvent> events(int gameID) throws DataAccessException {
+        return eventDAO.readGame(gameID, 0);
+    }
+
+    /**
+     * Hands {@code consumer} every event of every game logged after {@code afterPosition}, in
+     * log order, and returns the position of the last one. Consumers that keep the returned
+     * position can call again to pick up where they left off.
+     */
+    public long feed(long afterPosition, Consumer<LoggedEvent> consumer) throws DataAccessException {
+        long position = afterPosition;
+        List<LoggedEvent> page;
+        do {
+            page = eventDAO.readAll(position, FEED_PAGE_SIZE);
+            for (LoggedEvent event : page) {
+                consumer.accept(event);
+                position = event.position();
+            }
+        } while (page.size() == FEED_PAGE_SIZE);
+        return position;
+    }
+
+    public void clear() throws DataAccessException {
+        eventDAO.clear();
+    }
+
+    private void snapshot(int gameID) throws DataAccessException {
+        GameSnapshot replayed = replay(gameID);
+        if (replayed.game() != null) {
+            eventDAO.saveSnapshot(replayed);
+        }
+    }
+
+    private GameSnapshot replay(int gameID) throws DataAccessException {
+        GameSnapshot snapshot = eventDAO.latestSnapshot(gameID);
+        GameData game = snapshot == null ? null : snapshot.game();
+        long sequence = snapshot == null ? 0 : snapshot.sequence();
+        for (LoggedEvent logged : eventDAO.readGame(gameID, sequence)) {
+            if (game == null && !(logged.event() instanceof GameHistoryEvent.GameCreated)) {
+                // Nothing to apply the event to, so there is no game to rebuild
+                return new GameSnapshot(gameID, logged.sequence(), null);
+            }
+            game = logged.event().applyTo(gameID, game);
+            sequence = logged.sequence();
+        }
+        return new GameSnapshot(gameID, sequence, game);
+    }
+}
@@ -3,16 +3,25 @@ package service;
 import chess.ChessGame;
 import dataaccess.*;
 import model.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import java.util.List;
 
 public class GameService {
+    private static final Logger log = LoggerFactory.getLogger(GameService.class);
     private final GameDAO gameDAO;
     private final AuthDAO authDAO;
-    private int gameCounter =1;
+    // Null when game history isn't kept
+    private final GameHistory history;
 
     public GameService(GameDAO gameDAO, AuthDAO authDAO) {
+        this(gameDAO, authDAO, null);
+    }
+
+    public GameService(GameDAO gameDAO, AuthDAO authDAO, GameHistory history) {
         this.gameDAO = gameDAO;
         this.authDAO = authDAO;
+        this.history = history;
     }
 
 public List<GameData> listGames(String authToken) throws DataAccessException {
@@ -22,58 +31,106 @@ public List<GameData> listGames(String authToken) throws DataAccessException {
     return gameDAO.listGames();
     }
 
+    public GameData getGame(String authToken, int gameID) throws DataAccessException {
+        validateAuthToken(authToken);
+
+        GameData game = gameDAO.getGame(gameID);
+        if (game == null) {
+            throw new DataAccessException("Bad request: Game does not exist");
+        }
+        return game;
+    }
+
+    /**
+     * Tags the game list as it is now, from the store's cheap fingerprint of it, so an
+     * unchanged list can be answered without loading any games.
+     */
+    public String listTag(String authToken) throws DataAccessException {
+        validateAuthToken(authToken);
+        return gameDAO.listVersion().tag();
+    }
+
+    /**
+     * Tags games already read the same way, so the tag matches the data actually returned,
+     * whichever node or replica it came from.
+     */
+    public String listTag(List<GameData> games) {
+        return GameListVersion.of(gameDAO.epoch(), games).tag();
+    }
+
+    public String gameTag(GameData game) {
+        return "\"" + gameDAO.epoch() + game.gameID() + "-" + game.version() + "\"";
+    }
+
 public int createGame(String authToken, String gameName) throws DataAccessException {
     // Verify authToken exists
     AuthData authData = validateAuthToken(authToken);
 
-    int gameID = gameCounter++;
+    int gameID = gameDAO.nextGameID();
     GameData newGame = new GameData(gameID, null, null, gameName, new ChessGame());
     gameDAO.createGame(newGame);
+    recordHistory(gameID, new GameHistoryEvent.GameCreated(gameName));
 
     return gameID;
 }
 
+    /**
+     * Every event of the game so far, oldest first.
+     */
+    public List<LoggedEvent> history(String authToken, int gameID) throws DataAccessException {
+        validateAuthToken(authToken);
+        if (history == null) {
+            throw new DataAccessException("Service unavailable: game history is not kept");
+        }
+        List<LoggedEvent> events = history.events(gameID);
+        if (events.isEmpty()) {
+            throw new DataAccessException("Bad request: Game does not exist");
+        }
+        return events;
+    }
+
     public void joinGame(String authToken, int gameID, String playerColor) throws DataAccessException {
         // Verify that the authToken exists
         AuthData authData = validateAuthToken(authToken);
         String username = authData.username();
 
-        GameData existingGame  = gameDAO.getGame(gameID);
-        if (existingGame  == null) {
-            throw new DataAccessException("Bad request: Game does not exist");
-        }
-
-        String whitePlayer = existingGame.whiteUsername();
-        String blackPlayer = existingGame.blackUsername();
-
-        // Check if the color spot is available
+        ChessGame.TeamColor color;
         if ("WHITE".equalsIgnoreCase(playerColor)) {
-            if (whitePlayer != null) {
-                throw new DataAccessException("Forbidden: WHITE spot is already taken");
-            }
-            whitePlayer = username;
+            color = ChessGame.TeamColor.WHITE;
         } else if ("BLACK".equalsIgnoreCase(playerColor)) {
-            if ( blackPlayer != null) {
-                throw new DataAccessException("Forbidden: BLACK spot is already taken");
-            }
-            blackPlayer = username;
+            color = ChessGame.TeamColor.BLACK;
         } else {
             throw new DataAccessException("Bad request: Invalid color Choice");
         }
 
-        // Update the game data with the new player
-        GameData updatedGame = new GameData(
-                gameID,
-                whitePlayer,
-                blackPlayer,
-                existingGame.gameName(),
-                existingGame.game()
-        );
-        gameDAO.updateGame(updatedGame);
+        // One conditional update claims the seat; only a failed claim needs to read the game to say why
+        if (gameDAO.claimSeat(gameID, color, username)) {
+            recordHistory(gameID, new GameHistoryEvent.SeatClaimed(color, username));
+            return;
+        }
+        if (gameDAO.getGame(gameID) == null) {
+            throw new DataAccessException("Bad request: Game does not exist");
+        }
+        throw new DataAccessException("Forbidden: " + color + " spot is already taken");
     }
 
     public void clear() throws DataAccessException {
         gameDAO.clear();
+        if (history != null) {
+            history.clear();
+        }
+    }
+
+    // The change itself is already stored, so a history failure mustn't fail the request
+    private void recordHistory(int gameID, GameHistoryEvent event) {
+        if (history == null) {
+            return;
+        }
+        try {
+            history.record(gameID, event);
+        } catch (DataAccessException | RuntimeException e) {
+            log.warn("could not record history of game={}: {}", gameID, e.getMessage());
+        }
     }
 
     private AuthData validateAuthToken(String authToken) throws DataAccessException {
@@ -0,0 +1,76 @@
+package service;
+
+import chess.ChessGame;
+import dataaccess.LoggedEvent;
+import model.GameData;
+import model.GameHistoryEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Win, loss and draw counts per player, built by following the game event log. Fed through
+ * {@link GameHistory#feed}, it folds each event as it arrives and only holds the state of
+ * games still in progress, so it never rereads the log from the start.
+ */
+public class PlayerStats {
+    public record Record(int wins, int losses, int draws) {
+    }
+
+    private final Map<Integer, GameData> liveGames = new HashMap<>();
+    private final Map<String, Record> records = new HashMap<>();
+    private long position;
+
+    public synchronized void accept(LoggedEvent logged) {
+        position = logged.position();
+        GameData before = liveGames.get(logged.gameID());
+        if (before == null && !(logged.event() instanceof GameHistoryEvent.GameCreated)) {
+            // A game finished before this projection started, or one already scored
+            return;
+        }
+        ChessGame.TeamColor mover = before == null ? null : before.game().getTeamTurn();
+        GameData after = logged.event().applyTo(logged.gameID(), before);
+        if (!after.game().isGameOver()) {
+            liveGames.put(logged.gameID(), after);
+            return;
+        }
+        liveGames.remove(logged.gameID());
+        switch (logged.event()) {
+            case GameHistoryEvent.Resigned resigned -> score(after,
+                    resigned.username().equals(after.whiteUsername()) ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+            case GameHistoryEvent.MoveMade made when after.game().isInCheckmate(after.game().getTeamTurn()) -> score(after, mover);
+            default -> score(after, null);
+        }
+    }
+
+    /**
+     * Log position of the last event seen, to feed from next time.
+     */
+    public synchronized long position() {
+        return position;
+    }
+
+    public synchronized Record recordOf(String username) {
+        return records.getOrDefault(username, new Record(0, 0, 0));
+    }
+
+    // A null winner is a draw
+    private void score(GameData game, ChessGame.TeamColor winner) {
+        String white = game.whiteUsername();
+        String black = game.blackUsername();
+        if (winner == null) {
+            add(white, 0, 0, 1);
+            add(black, 0, 0, 1);
+        } else {
+            add(white, winner == ChessGame.TeamColor.WHITE ? 1 : 0, winner == ChessGame.TeamColor.WHITE ? 0 : 1, 0);
+            add(black, winner == ChessGame.TeamColor.BLACK ? 1 : 0, winner == ChessGame.TeamColor.BLACK ? 0 : 1, 0);
+        }
+    }
+
+    private void add(String username, int wins, int losses, int draws) {
+        if (username != null) {
+            records.merge(username, new Record(wins, losses, draws),
+                    (a, b) -> new Record(a.wins() + b.wins(), a.losses() + b.losses(), a.draws() + b.draws()));
+        }
+    }
+}
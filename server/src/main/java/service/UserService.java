@@ -5,12 +5,23 @@ import model.*;
 import java.util.UUID;
 
 public class UserService {
+    public static final long DEFAULT_TOKEN_TTL_MILLIS = 24 * 60 * 60_000L;
+
     private final UserDAO userDAO;
     private final AuthDAO authDAO;
+    private final long tokenTtlMillis;
 
     public UserService(UserDAO userDAO, AuthDAO authDAO) {
+        this(userDAO, authDAO, DEFAULT_TOKEN_TTL_MILLIS);
+    }
+
+    /**
+     * @param tokenTtlMillis how long a new auth token stays valid, or 0 for tokens that never expire
+     */
+    public UserService(UserDAO userDAO, AuthDAO authDAO, long tokenTtlMillis) {
         this.userDAO = userDAO;
         this.authDAO = authDAO;
+        this.tokenTtlMillis = tokenTtlMillis;
     }
 
 public AuthData createUser(UserData userData) throws DataAccessException {
@@ -22,8 +33,7 @@ public AuthData createUser(UserData userData) throws DataAccessException {
 
     userDAO.createUser(userData);
 
-    String authToken = UUID.randomUUID().toString();
-    AuthData authData = new AuthData(authToken, userData.username());
+    AuthData authData = newAuth(userData.username());
 
     authDAO.createAuth(authData);
 
@@ -38,8 +48,7 @@ public AuthData loginUser(UserData userData) throws DataAccessException {
     }
 
     // Generate a new authToken
-    String authToken = UUID.randomUUID().toString();
-    AuthData authData = new AuthData(authToken, userData.username());
+    AuthData authData = newAuth(userData.username());
 
     // Save the authToken
     authDAO.createAuth(authData);
@@ -56,6 +65,23 @@ public void logoutUser(String authToken) throws DataAccessException {
     authDAO.deleteAuth(authToken);
 }
 
+/**
+ * Revokes every token of the user the given token belongs to, including that one.
+ */
+public void logoutAllSessions(String authToken) throws DataAccessException {
+    AuthData authData = authDAO.getAuth(authToken);
+    if (authData == null) {
+        throw new DataAccessException("Error: Invalid auth token");
+    }
+
+    authDAO.deleteAllAuth(authData.username());
+}
+
+private AuthData newAuth(String username) {
+    long expiresAt = tokenTtlMillis > 0 ? System.currentTimeMillis() + tokenTtlMillis : 0;
+    return new AuthData(UUID.randomUUID().toString(), username, expiresAt);
+}
+
 public void clear() throws DataAccessException {
     userDAO.clear();
     authDAO.clear();
@@ -0,0 +1,77 @@
+package dataaccess;
+
+import chess.ChessGame;
+import model.GameData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BatchingGameDAOTest {
+    private static final int GAMES = 20;
+
+    private final AtomicInteger batches = new AtomicInteger();
+    private MemoryGameDAO store;
+    private BatchingGameDAO gameDAO;
+
+    @BeforeEach
+    public void setUp() throws DataAccessException {
+        store = new MemoryGameDAO() {
+            @Override
+            public boolean[] updateGamesIfUnchanged(List<GameData> games) throws DataAccessException {
+                batches.incrementAndGet();
+                return super.updateGamesIfUnchanged(games);
+            }
+        };
+        for (int i = 1; i <= GAMES; i++) {
+            store.createGame(new GameData(i, null, null, "Game " + i, new ChessGame()));
+        }
+        gameDAO = new BatchingGameDAO(store, 50, 64);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        gameDAO.close();
+    }
+
+    @Test
+    public void concurrentWritesShareABatch() throws Exception {
+        var results = new ArrayList<CompletableFuture<Boolean>>();
+        for (int i = 1; i <= GAMES; i++) {
+            GameData game = store.getGame(i);
+            results.add(gameDAO.updateGameIfUnchangedAsync(new GameData(i, "white", null, game.gameName(),
+                    game.game(), game.version())));
+        }
+
+        for (CompletableFuture<Boolean> result : results) {
+            Assertions.assertTrue(result.join());
+        }
+        Assertions.assertTrue(batches.get() < GAMES, "Writes queued together should be committed together");
+        Assertions.assertEquals("white", store.getGame(GAMES).whiteUsername());
+    }
+
+    @Test
+    public void staleAndMissingGamesAreRejected() throws DataAccessException {
+        GameData game = store.getGame(1);
+        Assertions.assertTrue(gameDAO.updateGameIfUnchanged(game));
+        Assertions.assertFalse(gameDAO.updateGameIfUnchanged(game), "Stale version must be rejected");
+        var gone = new GameData(99, null, null, "Gone", new ChessGame());
+        Assertions.assertThrows(DataAccessException.class, () -> gameDAO.updateGameIfUnchanged(gone),
+                "Missing games must fail as they do unbatched");
+    }
+
+    @Test
+    public void writesAfterCloseFail() {
+        gameDAO.close();
+
+        var result = gameDAO.updateGameIfUnchangedAsync(new GameData(1, null, null, "Test", new ChessGame()));
+        var thrown = Assertions.assertThrows(CompletionException.class, result::join);
+        Assertions.assertInstanceOf(DataAccessException.class, thrown.getCause());
+    }
+}
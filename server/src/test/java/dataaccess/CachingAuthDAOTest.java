@@ -0,0 +1,146 @@
+package dataaccess;
+
+import model.AuthData;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class CachingAuthDAOTest {
+
+    private CountingAuthDAO backing;
+    private AtomicLong now;
+    private CachingAuthDAO authDAO;
+
+    @BeforeEach
+    public void setup() {
+        backing = new CountingAuthDAO();
+        now = new AtomicLong(1000);
+        authDAO = new CachingAuthDAO(backing, 100, 10, 3, now::get);
+    }
+
+    @Test
+    public void testGetAuthServedFromCache() throws DataAccessException {
+        authDAO.createAuth(new AuthData("token123", "pp"));
+
+        assertEquals("pp", authDAO.getAuth("token123").username());
+        assertEquals("pp", authDAO.getAuth("token123").username());
+        assertEquals(0, backing.reads, "cached tokens should not hit the backing DAO");
+    }
+
+    @Test
+    public void testEntryExpires() throws DataAccessException {
+        authDAO.createAuth(new AuthData("token123", "pp"));
+        now.addAndGet(101);
+
+        assertNotNull(authDAO.getAuth("token123"));
+        assertEquals(1, backing.reads, "expired tokens should be reloaded");
+    }
+
+    @Test
+    public void testNegativeCaching() throws DataAccessException {
+        assertNull(authDAO.getAuth("missing"));
+        assertNull(authDAO.getAuth("missing"));
+        assertEquals(1, backing.reads);
+
+        now.addAndGet(11);
+        assertNull(authDAO.getAuth("missing"));
+        assertEquals(2, backing.reads);
+    }
+
+    @Test
+    public void testCreateReplacesNegativeEntry() throws DataAccessException {
+        assertNull(authDAO.getAuth("token123"));
+        authDAO.createAuth(new AuthData("token123", "pp"));
+        assertNotNull(authDAO.getAuth("token123"));
+    }
+
+    @Test
+    public void testDeleteAuthInvalidates() throws DataAccessException {
+        authDAO.createAuth(new AuthData("token123", "pp"));
+        authDAO.deleteAuth("token123");
+        assertNull(authDAO.getAuth("token123"));
+    }
+
+    @Test
+    public void testClearInvalidates() throws DataAccessException {
+        authDAO.createAuth(new AuthData("token123", "pp"));
+        authDAO.clear();
+        assertNull(authDAO.getAuth("token123"));
+    }
+
+    @Test
+    public void testDeleteAllAuthInvalidatesUser() throws DataAccessException {
+        authDAO.createAuth(new AuthData("token1", "pp"));
+        authDAO.createAuth(new AuthData("token2", "pp"));
+        authDAO.createAuth(new AuthData("token3", "other"));
+        authDAO.deleteAllAuth("pp");
+
+        assertNull(authDAO.getAuth("token1"));
+        assertNull(authDAO.getAuth("token2"));
+        assertNotNull(authDAO.getAuth("token3"));
+    }
+
+    @Test
+    public void testEntryNeverOutlivesToken() throws DataAccessException {
+        authDAO.createAuth(new AuthData("token123", "pp", now.get() + 20));
+        now.addAndGet(21);
+
+        assertNull(authDAO.getAuth("token123"), "cached entry should stop at the token's expiry");
+    }
+
+    @Test
+    public void testPurgeDeletesExpiredInBatches() throws DataAccessException {
+        for (int i = 0; i < 5; i++) {
+            backing.createAuth(new AuthData("old" + i, "pp", 1));
+        }
+        backing.createAuth(new AuthData("live", "pp", 0));
+
+        assertEquals(5, new ExpiredAuthPurger(backing, 2, now::get).purge());
+        assertEquals(1, backing.values().size());
+    }
+
+    @Test
+    public void testCacheIsBounded() throws DataAccessException {
+        for (int i = 0; i < 10; i++) {
+            authDAO.createAuth(new AuthData("token" + i, "pp"));
+        }
+        assertTrue(authDAO.size() <= 3);
+        for (int i = 0; i < 10; i++) {
+            assertNotNull(authDAO.getAuth("token" + i), "evicted tokens must still resolve");
+        }
+    }
+
+    // The clock is read while an entry is being stored, so it can slip a logout in between
+    // the generation check and the put
+    @Test
+    public void testDeleteDuringPutIsNotUndone() throws DataAccessException {
+        backing.createAuth(new AuthData("token123", "pp"));
+        var racing = new CachingAuthDAO[1];
+        var armed = new boolean[] {true};
+        racing[0] = new CachingAuthDAO(backing, 100, 10, 3, () -> {
+            if (armed[0]) {
+                armed[0] = false;
+                try {
+                    racing[0].deleteAuth("token123");
+                } catch (DataAccessException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            return now.get();
+        });
+
+        assertNotNull(racing[0].getAuth("token123"), "the read began before the logout");
+        assertNull(racing[0].getAuth("token123"), "the logout must not stay cached as valid");
+    }
+
+    private static class CountingAuthDAO extends MemoryAuthDAO {
+        private int reads = 0;
+
+        @Override
+        public AuthData getAuth(String authToken) throws DataAccessException {
+            reads++;
+            return super.getAuth(authToken);
+        }
+    }
+}
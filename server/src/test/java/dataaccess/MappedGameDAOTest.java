@@ -0,0 +1,133 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import model.GameData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class MappedGameDAOTest {
+    private static final int SEGMENT_BYTES = 4096;
+
+    @TempDir
+    Path directory;
+
+    private MappedGameDAO open() throws DataAccessException {
+        return new MappedGameDAO(directory, SEGMENT_BYTES, false);
+    }
+
+    @Test
+    public void gamesSurviveReopen() throws Exception {
+        try (var gameDAO = open()) {
+            gameDAO.createGame(new GameData(1, null, null, "First", new ChessGame()));
+            gameDAO.createGame(new GameData(2, null, null, "Second", new ChessGame()));
+            Assertions.assertTrue(gameDAO.claimSeat(1, ChessGame.TeamColor.WHITE, "pp"));
+            GameData game = gameDAO.getGame(1);
+            game.game().makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+            Assertions.assertTrue(gameDAO.updateGameIfUnchanged(game));
+            Assertions.assertFalse(gameDAO.updateGameIfUnchanged(game));
+        }
+
+        try (var gameDAO = open()) {
+            GameData game = gameDAO.getGame(1);
+            Assertions.assertEquals("pp", game.whiteUsername());
+            Assertions.assertEquals(2, game.version());
+            Assertions.assertEquals(ChessGame.TeamColor.BLACK, game.game().getTeamTurn());
+            Assertions.assertNotNull(game.game().getBoard().getPiece(new ChessPosition(4, 5)));
+            Assertions.assertEquals(2, gameDAO.listGames().size());
+        }
+    }
+
+    @Test
+    public void listVersionReadFromTheIndex() throws Exception {
+        try (var gameDAO = open()) {
+            gameDAO.createGame(new GameData(1, null, null, "First", new ChessGame()));
+            gameDAO.createGame(new GameData(2, null, null, "Second", new ChessGame()));
+            Assertions.assertTrue(gameDAO.claimSeat(2, ChessGame.TeamColor.BLACK, "qq"));
+
+            Assertions.assertEquals(GameListVersion.of(gameDAO.epoch(), gameDAO.listGames()), gameDAO.listVersion());
+        }
+    }
+
+    @Test
+    public void tornWriteIsDroppedOnRecovery() throws Exception {
+        long end;
+        try (var gameDAO = open()) {
+            gameDAO.createGame(new GameData(1, null, null, "Test", new ChessGame()));
+            gameDAO.claimSeat(1, ChessGame.TeamColor.BLACK, "qq");
+        }
+        Path segment = directory.resolve("games-000001.seg");
+        // Simulate a crash halfway through a third record: a length but a wrong checksum
+        try (var file = new RandomAccessFile(segment.toFile(), "rw")) {
+            end = findEnd(file);
+            file.seek(end);
+            file.writeInt(40);
+            file.writeInt(12345);
+        }
+
+        try (var gameDAO = open()) {
+            Assertions.assertEquals("qq", gameDAO.getGame(1).blackUsername());
+            gameDAO.claimSeat(1, ChessGame.TeamColor.WHITE, "pp");
+        }
+        try (var gameDAO = open()) {
+            GameData game = gameDAO.getGame(1);
+            Assertions.assertEquals("pp", game.whiteUsername(), "Writes after recovery must replace the torn record");
+            Assertions.assertEquals(2, game.version());
+        }
+    }
+
+    @Test
+    public void compactionDropsDeadSegments() throws Exception {
+        try (var gameDAO = open()) {
+            gameDAO.createGame(new GameData(1, null, null, "Busy", new ChessGame()));
+            gameDAO.createGame(new GameData(2, "pp", "qq", "Quiet", new ChessGame()));
+            for (int i = 0; i < 200; i++) {
+                gameDAO.updateGame(gameDAO.getGame(1));
+            }
+            int before = gameDAO.segmentCount();
+            Assertions.assertTrue(before > 2);
+
+            gameDAO.compact();
+
+            Assertions.assertTrue(gameDAO.segmentCount() < before);
+            Assertions.assertEquals(200, gameDAO.getGame(1).version());
+            Assertions.assertEquals("qq", gameDAO.getGame(2).blackUsername());
+        }
+        try (var gameDAO = open()) {
+            Assertions.assertEquals(200, gameDAO.getGame(1).version());
+            Assertions.assertEquals("Quiet", gameDAO.getGame(2).gameName());
+        }
+    }
+
+    @Test
+    public void clearRemovesEverything() throws Exception {
+        try (var gameDAO = open()) {
+            gameDAO.createGame(new GameData(1, null, null, "Test", new ChessGame()));
+            gameDAO.clear();
+            Assertions.assertNull(gameDAO.getGame(1));
+            gameDAO.createGame(new GameData(1, null, null, "Again", new ChessGame()));
+        }
+        try (var gameDAO = open()) {
+            Assertions.assertEquals("Again", gameDAO.getGame(1).gameName());
+            Assertions.assertEquals(1, Files.list(directory).count());
+        }
+    }
+
+    private static long findEnd(RandomAccessFile file) throws Exception {
+        long position = 0;
+        while (true) {
+            file.seek(position);
+            int length = file.readInt();
+            if (length == 0) {
+                return position;
+            }
+            position += 8 + length;
+        }
+    }
+}
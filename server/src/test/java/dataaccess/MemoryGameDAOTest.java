@@ -0,0 +1,74 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import model.GameData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MemoryGameDAOTest {
+    private MemoryGameDAO gameDAO;
+
+    @BeforeEach
+    public void setUp() throws DataAccessException {
+        gameDAO = new MemoryGameDAO();
+        gameDAO.createGame(new GameData(1, null, null, "Test", new ChessGame()));
+    }
+
+    @Test
+    public void readsAreIsolatedFromStoredGame() throws Exception {
+        GameData read = gameDAO.getGame(1);
+        read.game().makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, gameDAO.getGame(1).game().getTeamTurn(),
+                "A move on a read copy must not change the stored game");
+        Assertions.assertTrue(gameDAO.updateGameIfUnchanged(read));
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, gameDAO.getGame(1).game().getTeamTurn());
+        Assertions.assertFalse(gameDAO.updateGameIfUnchanged(read), "Stale version must be rejected");
+    }
+
+    @Test
+    public void listIsReusedUntilWrite() throws DataAccessException {
+        var first = gameDAO.listGames();
+        Assertions.assertSame(first, gameDAO.listGames());
+
+        gameDAO.claimSeat(1, ChessGame.TeamColor.WHITE, "pp");
+        var second = gameDAO.listGames();
+        Assertions.assertNotSame(first, second);
+        Assertions.assertEquals("pp", second.get(0).whiteUsername());
+        Assertions.assertNull(first.get(0).whiteUsername());
+    }
+
+    @Test
+    public void concurrentClaimsHaveOneWinner() throws Exception {
+        var start = new CountDownLatch(1);
+        var winners = new AtomicInteger();
+        var threads = new ArrayList<Thread>();
+        for (int i = 0; i < 16; i++) {
+            String username = "user" + i;
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                    if (gameDAO.claimSeat(1, ChessGame.TeamColor.BLACK, username)) {
+                        winners.incrementAndGet();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assertions.assertEquals(1, winners.get());
+        Assertions.assertEquals(1, gameDAO.getGame(1).version());
+    }
+}
@@ -0,0 +1,48 @@
+package dataaccess;
+
+import chess.ChessGame;
+import model.AuthData;
+import model.GameData;
+import model.UserData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+public class MemorySnapshotsTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void snapshotRoundTrips() throws DataAccessException {
+        Path file = directory.resolve("chess.json");
+        var users = new MemoryUserDAO();
+        var auths = new MemoryAuthDAO();
+        var games = new MemoryGameDAO();
+        users.createUser(new UserData("pp", "secret", "pp@gmail.com"));
+        auths.createAuth(new AuthData("token", "pp"));
+        games.createGame(new GameData(7, "pp", null, "Test", new ChessGame()));
+        games.claimSeat(7, ChessGame.TeamColor.BLACK, "qq");
+        new MemorySnapshots(file, users, auths, games).save();
+
+        var restoredUsers = new MemoryUserDAO();
+        var restoredAuths = new MemoryAuthDAO();
+        var restoredGames = new MemoryGameDAO();
+        new MemorySnapshots(file, restoredUsers, restoredAuths, restoredGames).load();
+
+        Assertions.assertTrue(restoredUsers.authenticateUser("pp", "secret"));
+        Assertions.assertEquals("pp", restoredAuths.getAuth("token").username());
+        GameData game = restoredGames.getGame(7);
+        Assertions.assertEquals("qq", game.blackUsername());
+        Assertions.assertEquals(1, game.version());
+        Assertions.assertEquals(new ChessGame(), game.game());
+    }
+
+    @Test
+    public void missingSnapshotLoadsNothing() throws DataAccessException {
+        var games = new MemoryGameDAO();
+        new MemorySnapshots(directory.resolve("none.json"), new MemoryUserDAO(), new MemoryAuthDAO(), games).load();
+        Assertions.assertTrue(games.listGames().isEmpty());
+    }
+}
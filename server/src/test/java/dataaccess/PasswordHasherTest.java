@@ -0,0 +1,89 @@
+package dataaccess;
+
+import metrics.Counter;
+import metrics.Histogram;
+import metrics.MetricsRegistry;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class PasswordHasherTest {
+
+    private PasswordHasher hasher;
+
+    @BeforeEach
+    public void setup() {
+        hasher = new PasswordHasher(4, 2, 8, 5_000);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        hasher.close();
+    }
+
+    @Test
+    public void testHashAndMatch() throws DataAccessException {
+        String hashed = hasher.hash("123456");
+        assertNotEquals("123456", hashed);
+        assertTrue(hashed.startsWith("$2a$04$"), "hash should use the configured cost");
+        assertTrue(hasher.matches("123456", hashed));
+    }
+
+    @Test
+    public void testWrongPasswordDoesNotMatch() throws DataAccessException {
+        String hashed = hasher.hash("123456");
+        assertFalse(hasher.matches("654321", hashed));
+    }
+
+    @Test
+    public void testLatencyIsRecorded() throws DataAccessException {
+        Histogram hashTime = MetricsRegistry.global().histogram("chess_bcrypt_seconds", "");
+        long before = hashTime.count();
+        long sumBefore = hashTime.sumNanos();
+
+        hasher.hash("123456");
+
+        assertEquals(before + 1, hashTime.count());
+        assertTrue(hashTime.sumNanos() > sumBefore);
+    }
+
+    @Test
+    public void testRejectsAfterClose() {
+        Counter rejected = MetricsRegistry.global().counter("chess_bcrypt_rejected_total", "");
+        long before = rejected.get();
+        hasher.close();
+        DataAccessException exception = assertThrows(DataAccessException.class, () -> hasher.hash("123456"));
+        assertTrue(exception.getMessage().startsWith("Service unavailable"));
+        assertEquals(before + 1, rejected.get());
+    }
+
+    @Test
+    public void testRejectsRatherThanWaitsWhenQueueIsFull() throws Exception {
+        var busy = new PasswordHasher(4, 1, 1, 5_000);
+        var release = new CountDownLatch(1);
+        var blockers = Executors.newFixedThreadPool(2);
+        try {
+            // One task holds the only worker and a second fills the one-slot queue
+            for (int i = 0; i < 2; i++) {
+                blockers.submit(() -> busy.submit(() -> release.await(5, TimeUnit.SECONDS)));
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (busy.getQueueDepth() < 1 && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            assertEquals(1, busy.getQueueDepth());
+
+            DataAccessException exception = assertTimeoutPreemptively(Duration.ofSeconds(1),
+                    () -> assertThrows(DataAccessException.class, () -> busy.hash("123456")));
+            assertTrue(exception.getMessage().startsWith("Service unavailable"));
+        } finally {
+            release.countDown();
+            blockers.shutdown();
+            busy.close();
+        }
+    }
+}
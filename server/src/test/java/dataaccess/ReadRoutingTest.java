@@ -0,0 +1,115 @@
+package dataaccess;
+
+import chess.ChessGame;
+import com.google.gson.Gson;
+import model.AuthData;
+import model.GameData;
+import org.junit.jupiter.api.*;
+import service.GameService;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Uses a second in-memory H2 database as a stand-in replica. Nothing replicates to it, so
+ * which database answered shows where a read was routed.
+ */
+public class ReadRoutingTest {
+    private static final String REPLICA_URL = "jdbc:h2:mem:replica-test";
+
+    private SQLGameDAO gameDAO;
+    private SQLAuthDAO authDAO;
+    private Connection replica;
+
+    @BeforeEach
+    public void setup() throws DataAccessException, SQLException {
+        Assumptions.assumeTrue(System.getProperty("chess.db.url", "").startsWith("jdbc:h2:"),
+                "the stand-in replica needs the embedded database");
+        gameDAO = new SQLGameDAO();
+        authDAO = new SQLAuthDAO();
+        gameDAO.clear();
+        authDAO.clear();
+        gameDAO.createGame(new GameData(1, null, null, "On primary", new ChessGame()));
+
+        replica = DriverManager.getConnection(SqlDialect.H2.connectionUrl(REPLICA_URL), "", "");
+        SchemaMigrations.migrate(replica, SqlDialect.H2);
+        try (var ps = replica.prepareStatement("DELETE FROM game")) {
+            ps.executeUpdate();
+        }
+        try (var ps = replica.prepareStatement("DELETE FROM auth")) {
+            ps.executeUpdate();
+        }
+        try (var ps = replica.prepareStatement("INSERT INTO game (gameID, gameName, chessGame) VALUES (1, ?, ?)")) {
+            ps.setString(1, "On replica");
+            ps.setString(2, new Gson().toJson(new ChessGame()));
+            ps.executeUpdate();
+        }
+
+        DatabaseManager.setReadReplicas(List.of(REPLICA_URL));
+        ReadRouting.enable(60_000);
+    }
+
+    @AfterEach
+    public void tearDown() throws SQLException {
+        ReadRouting.end();
+        ReadRouting.disable();
+        DatabaseManager.setReadReplicas(List.of());
+        if (replica != null) {
+            replica.close();
+        }
+    }
+
+    @Test
+    public void readOnlyRequestsUseReplica() throws DataAccessException {
+        ReadRouting.begin("token", true);
+        assertEquals("On replica", gameDAO.getGame(1).gameName());
+        assertEquals("On replica", gameDAO.listGames().get(0).gameName());
+
+        ReadRouting.begin("token", false);
+        assertEquals("On primary", gameDAO.getGame(1).gameName(), "requests that write must read the primary");
+
+        ReadRouting.end();
+        assertEquals("On primary", gameDAO.getGame(1).gameName(), "reads outside a request go to the primary");
+    }
+
+    @Test
+    public void replicaReadsCarryTheReplicasTag() throws DataAccessException {
+        gameDAO.updateGame(gameDAO.getGame(1));
+
+        ReadRouting.begin("token", true);
+        GameData lagging = gameDAO.getGame(1);
+        ReadRouting.end();
+
+        var gameService = new GameService(gameDAO, authDAO);
+        assertNotEquals(gameService.gameTag(gameDAO.getGame(1)), gameService.gameTag(lagging),
+                "a lagging replica's copy must not be tagged as the primary's");
+    }
+
+    @Test
+    public void sessionReadsItsOwnWrites() throws DataAccessException {
+        ReadRouting.recordWrite("writer");
+
+        ReadRouting.begin("writer", true);
+        assertEquals("On primary", gameDAO.getGame(1).gameName());
+
+        ReadRouting.begin("someone else", true);
+        assertEquals("On replica", gameDAO.getGame(1).gameName());
+    }
+
+    @Test
+    public void authLookupsAlwaysUsePrimary() throws DataAccessException, SQLException {
+        authDAO.createAuth(new AuthData("fresh", "pp"));
+        // A token the primary has revoked but the lagging replica still holds
+        try (var ps = replica.prepareStatement("INSERT INTO auth (authToken, username) VALUES ('revoked', 'pp')")) {
+            ps.executeUpdate();
+        }
+
+        ReadRouting.begin("fresh", true);
+        assertNotNull(authDAO.getAuth("fresh"));
+        assertNull(authDAO.getAuth("unknown"));
+        assertNull(authDAO.getAuth("revoked"));
+    }
+}
@@ -6,6 +6,8 @@ import org.junit.jupiter.api.*;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class SQLGameDAOTest {
 
@@ -107,6 +109,95 @@ public class SQLGameDAOTest {
                 "non-existent gameID");
     }
 
+    @Test
+    public void testListVersionMatchesListedGames() throws DataAccessException {
+        gameDAO.createGame(new GameData(5, null, null, "First", new ChessGame()));
+        gameDAO.createGame(new GameData(9, null, null, "Second", new ChessGame()));
+        GameListVersion before = gameDAO.listVersion();
+        assertEquals(GameListVersion.of("", gameDAO.listGames()), before);
+
+        assertTrue(gameDAO.claimSeat(5, ChessGame.TeamColor.WHITE, "pp"));
+
+        assertNotEquals(before, gameDAO.listVersion(), "a write changes the version");
+        assertEquals(GameListVersion.of("", gameDAO.listGames()), gameDAO.listVersion());
+    }
+
+    @Test
+    public void testArchiveFinishedGamesSuccess() throws DataAccessException {
+        ChessGame finished = new ChessGame();
+        finished.setGameOver();
+        gameDAO.createGame(new GameData(1, "pp", "pp2", "Finished", finished));
+        gameDAO.createGame(new GameData(2, "pp", "pp2", "Ongoing", new ChessGame()));
+
+        assertEquals(1, gameDAO.archiveFinishedGames(Long.MAX_VALUE, 10));
+
+        List<GameData> games = gameDAO.listGames();
+        assertEquals(1, games.size(), "archived games leave the list");
+        GameData archived = gameDAO.getGame(1);
+        assertEquals("Finished", archived.gameName());
+        assertEquals("pp2", archived.blackUsername());
+        assertEquals(finished, archived.game());
+        assertEquals(2, gameDAO.highestGameID());
+    }
+
+    @Test
+    public void testWritesAfterTheEndKeepFinishTime() throws Exception {
+        ChessGame finished = new ChessGame();
+        finished.setGameOver();
+        gameDAO.createGame(new GameData(4, null, null, "Finished", finished));
+        long endedBy = System.currentTimeMillis();
+        Thread.sleep(5);
+
+        gameDAO.updateGame(gameDAO.getGame(4));
+        assertTrue(gameDAO.updateGameIfUnchanged(gameDAO.getGame(4)));
+        assertTrue(gameDAO.updateGamesIfUnchanged(List.of(gameDAO.getGame(4)))[0]);
+
+        assertEquals(1, gameDAO.archiveFinishedGames(endedBy, 10), "later writes must not restart the clock");
+    }
+
+    // Writing to a game that has been archived
+    @Test
+    public void testArchiveFinishedGamesFailure() throws DataAccessException {
+        ChessGame finished = new ChessGame();
+        finished.setGameOver();
+        gameDAO.createGame(new GameData(3, "pp", "pp2", "Finished", finished));
+        assertEquals(0, gameDAO.archiveFinishedGames(0, 10), "games that ended too recently stay live");
+        gameDAO.archiveFinishedGames(Long.MAX_VALUE, 10);
+
+        GameData archived = gameDAO.getGame(3);
+        assertThrows(DataAccessException.class, () -> gameDAO.updateGameIfUnchanged(archived));
+        try (var batched = new BatchingGameDAO(gameDAO, 0, 8)) {
+            var thrown = assertThrows(DataAccessException.class, () -> batched.updateGameIfUnchanged(archived));
+            assertTrue(thrown.getMessage().startsWith("Forbidden"), "batched writes fail as unbatched ones do");
+        }
+        assertEquals(3, gameDAO.highestGameID(), "archived IDs are never handed out again");
+    }
+
+    @Test
+    public void testNextGameIDSharedAcrossNodes() throws Exception {
+        gameDAO.createGame(new GameData(40, null, null, "Existing", new ChessGame()));
+        var otherNode = new SQLGameDAO();
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+
+        Thread other = new Thread(() -> {
+            for (int i = 0; i < 50; i++) {
+                try {
+                    ids.add(otherNode.nextGameID());
+                } catch (DataAccessException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        });
+        other.start();
+        for (int i = 0; i < 50; i++) {
+            ids.add(gameDAO.nextGameID());
+        }
+        other.join();
+
+        assertEquals(100, ids.size(), "no ID may be handed out twice");
+        assertTrue(ids.stream().allMatch(id -> id > 40), "IDs start past stored games");
+    }
+
     @Test
     public void testClear() throws DataAccessException {
         GameData gameData = new GameData(1, "pp", "pp2", "Game to Clear", null);
@@ -0,0 +1,59 @@
+package dataaccess;
+
+import chess.ChessGame;
+import model.GameData;
+import model.GameHistoryEvent;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+public class SQLGameEventDAOTest {
+
+    private SQLGameEventDAO eventDAO;
+
+    @BeforeEach
+    public void setup() throws DataAccessException {
+        eventDAO = new SQLGameEventDAO();
+        eventDAO.clear();
+    }
+
+    @Test
+    public void testAppendSuccess() throws DataAccessException {
+        assertTrue(eventDAO.append(1, 0, List.of(new GameHistoryEvent.GameCreated("First"),
+                new GameHistoryEvent.SeatClaimed(ChessGame.TeamColor.WHITE, "pp"))));
+        assertTrue(eventDAO.append(2, 0, List.of(new GameHistoryEvent.GameCreated("Second"))));
+
+        assertEquals(2, eventDAO.lastSequence(1));
+        List<LoggedEvent> events = eventDAO.readGame(1, 1);
+        assertEquals(1, events.size());
+        assertEquals(new GameHistoryEvent.SeatClaimed(ChessGame.TeamColor.WHITE, "pp"), events.get(0).event());
+
+        List<LoggedEvent> all = eventDAO.readAll(0, 10);
+        assertEquals(3, all.size());
+        assertEquals(2, eventDAO.readAll(all.get(0).position(), 10).size());
+    }
+
+    // Appending after a sequence another writer already used
+    @Test
+    public void testAppendFailure() throws DataAccessException {
+        eventDAO.append(1, 0, List.of(new GameHistoryEvent.GameCreated("First")));
+
+        assertFalse(eventDAO.append(1, 0, List.of(new GameHistoryEvent.GameCreated("Again"),
+                new GameHistoryEvent.Resigned("pp"))));
+        assertEquals(1, eventDAO.lastSequence(1), "a rejected append writes nothing");
+    }
+
+    @Test
+    public void testSnapshot() throws DataAccessException {
+        assertNull(eventDAO.latestSnapshot(1));
+        var game = new GameData(1, "pp", null, "Snapshotted", new ChessGame());
+        eventDAO.saveSnapshot(new GameSnapshot(1, 5, game));
+        eventDAO.saveSnapshot(new GameSnapshot(1, 3, new GameData(1, null, null, "Older", new ChessGame())));
+
+        GameSnapshot snapshot = eventDAO.latestSnapshot(1);
+        assertEquals(5, snapshot.sequence());
+        assertEquals("Snapshotted", snapshot.game().gameName());
+        assertEquals(game.game(), snapshot.game().game());
+    }
+}
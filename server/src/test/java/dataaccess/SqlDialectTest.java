@@ -0,0 +1,23 @@
+package dataaccess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SqlDialectTest {
+
+    @Test
+    public void dialectFollowsUrl() {
+        Assertions.assertEquals(SqlDialect.H2, SqlDialect.forUrl("jdbc:h2:file:data/chess"));
+        Assertions.assertEquals(SqlDialect.MYSQL, SqlDialect.forUrl("jdbc:mysql://localhost:3306"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> SqlDialect.forUrl("jdbc:sqlite:chess.db"));
+    }
+
+    @Test
+    public void h2UrlGetsCompatibilitySettingsOnce() {
+        String url = SqlDialect.H2.connectionUrl("jdbc:h2:mem:chess;MODE=MySQL");
+
+        Assertions.assertEquals("jdbc:h2:mem:chess;MODE=MySQL;NON_KEYWORDS=USER;DB_CLOSE_DELAY=-1", url);
+        Assertions.assertEquals("jdbc:h2:file:data/chess;MODE=MySQL;NON_KEYWORDS=USER",
+                SqlDialect.H2.connectionUrl("jdbc:h2:file:data/chess"));
+    }
+}
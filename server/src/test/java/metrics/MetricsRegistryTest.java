@@ -0,0 +1,67 @@
+package metrics;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+public class MetricsRegistryTest {
+
+    @Test
+    void histogramQuantilesStayWithinBucketPrecision() {
+        var histogram = new Histogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i * 10L));
+        }
+
+        assertEquals(1000, histogram.count());
+        long p50 = histogram.quantile(0.5);
+        long p99 = histogram.quantile(0.99);
+        assertTrue(p50 >= 5_000_000 && p50 <= 5_000_000 * 1.25, "p50 was " + p50);
+        assertTrue(p99 >= 9_900_000 && p99 <= 10_000_000, "p99 was " + p99 + ", capped by the largest value");
+        assertEquals(0, new Histogram().quantile(0.99));
+    }
+
+    @Test
+    void bucketsAreContiguous() {
+        for (int bucket = 1; bucket < 100; bucket++) {
+            long lowest = Histogram.upperBoundNanos(bucket - 1);
+            assertEquals(bucket, Histogram.bucketOf(lowest), "first value past bucket " + (bucket - 1));
+            assertEquals(bucket, Histogram.bucketOf(Histogram.upperBoundNanos(bucket) - 1));
+        }
+    }
+
+    @Test
+    void scrapeWritesPrometheusText() {
+        var registry = new MetricsRegistry();
+        registry.counter("requests_total", "Requests", "route", "GET /game").add(3);
+        registry.gauge("sessions", "Sessions", () -> 7);
+        var histogram = registry.histogram("latency_seconds", "Latency", "op", "say \"hi\"");
+        histogram.record(2_000_000);
+        histogram.record(Long.MAX_VALUE);
+
+        String text = registry.scrape();
+
+        assertTrue(text.contains("# TYPE requests_total counter\nrequests_total{route=\"GET /game\"} 3\n"), text);
+        assertTrue(text.contains("sessions 7\n"), text);
+        assertTrue(text.contains("# TYPE latency_seconds histogram\n"), text);
+        assertTrue(text.contains("latency_seconds_bucket{op=\"say \\\"hi\\\"\",le=\"0.002097152\"} 1\n"), text);
+        assertTrue(text.contains("latency_seconds_bucket{op=\"say \\\"hi\\\"\",le=\"+Inf\"} 2\n"), text);
+        assertTrue(text.contains("latency_seconds_count{op=\"say \\\"hi\\\"\"} 2\n"), text);
+        assertSame(histogram, registry.histogram("latency_seconds", "Latency", "op", "say \"hi\""));
+        assertThrows(IllegalArgumentException.class, () -> registry.counter("sessions", "Sessions"));
+    }
+
+    @Test
+    void seriesKeyIsCopiedFromTheCallersLabels() {
+        var registry = new MetricsRegistry();
+        String[] labels = {"op", "get"};
+        Counter counter = registry.counter("calls_total", "Calls", labels);
+        labels[1] = "put";
+
+        assertSame(counter, registry.counter("calls_total", "Calls", "op", "get"));
+        assertNotSame(counter, registry.counter("calls_total", "Calls", labels));
+        counter.increment();
+        assertTrue(registry.scrape().contains("calls_total{op=\"get\"} 1\n"));
+    }
+}
@@ -0,0 +1,58 @@
+package profiling;
+
+import chess.ChessGame;
+import dataaccess.DataAccessException;
+import dataaccess.MemoryGameDAO;
+import dataaccess.MeteredGameDAO;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import model.GameData;
+import org.junit.jupiter.api.*;
+import server.websocket.ConnectionManager;
+import websocket.messages.NotificationMessage;
+import websocket.messages.ServerMessage;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+public class FlightEventsTest {
+
+    @Test
+    void daoCallsAndBroadcastsAreRecorded() throws DataAccessException, IOException {
+        List<RecordedEvent> events;
+        try (var recording = new Recording()) {
+            recording.enable("chess.DaoCall").withThreshold(Duration.ZERO);
+            recording.enable("chess.Broadcast");
+            recording.start();
+
+            var gameDAO = new MeteredGameDAO(new MemoryGameDAO());
+            gameDAO.createGame(new GameData(7, null, null, "Recorded", new ChessGame()));
+            gameDAO.getGame(7);
+            new ConnectionManager().broadcast(7, null,
+                    new NotificationMessage(ServerMessage.ServerMessageType.NOTIFICATION, "hello"));
+
+            recording.stop();
+            Path file = Files.createTempFile("chess", ".jfr");
+            try {
+                recording.dump(file);
+                events = RecordingFile.readAllEvents(file);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+
+        assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().equals("chess.DaoCall")
+                && "game".equals(e.getString("dao")) && "getGame".equals(e.getString("operation"))));
+        RecordedEvent broadcast = events.stream()
+                .filter(e -> e.getEventType().getName().equals("chess.Broadcast"))
+                .findFirst().orElseThrow();
+        assertEquals(7, broadcast.getInt("gameID"));
+        assertEquals("NOTIFICATION", broadcast.getString("messageType"));
+        assertEquals(0, broadcast.getInt("recipients"));
+    }
+}
@@ -0,0 +1,19 @@
+package server;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameHandlerTest {
+
+    @Test
+    public void ifNoneMatchComparesWholeTags() {
+        assertTrue(GameHandler.matchesAny("\"1-2\"", "\"1-2\""));
+        assertTrue(GameHandler.matchesAny("\"0-0\", W/\"1-2\"", "\"1-2\""));
+        assertTrue(GameHandler.matchesAny("*", "\"1-2\""));
+
+        assertFalse(GameHandler.matchesAny("\"11-2\"", "\"1-2\""));
+        assertFalse(GameHandler.matchesAny("\"1-23\", \"0-1\"", "\"1-2\""));
+        assertFalse(GameHandler.matchesAny(null, "\"1-2\""));
+    }
+}
@@ -0,0 +1,244 @@
+package server.bus;
+
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.UpgradeRequest;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import server.websocket.ConnectionManager;
+import websocket.messages.NotificationMessage;
+import websocket.messages.ServerMessage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class GameEventBusTest {
+
+    private static GameEvent event(GameEventBus bus, int gameID, long sequence, String content) {
+        var message = new NotificationMessage(ServerMessage.ServerMessageType.NOTIFICATION, content);
+        message.setSequence(sequence);
+        return GameEvent.of(bus.nodeId(), gameID, "alice", null, message);
+    }
+
+    private static BlockingQueue<GameEvent> listen(GameEventBus bus) {
+        var received = new LinkedBlockingQueue<GameEvent>();
+        bus.setListener(received::add);
+        return received;
+    }
+
+    @Test
+    public void eventRoundTripsThroughJson() {
+        var bus = new InProcessGameEventBus();
+        GameEvent event = event(bus, 7, 3, "alice moved");
+
+        var message = (NotificationMessage) event.message();
+        Assertions.assertEquals("alice moved", message.getContent());
+        Assertions.assertEquals(3L, message.getSequence());
+        Assertions.assertEquals("alice", event.excludedUsername());
+    }
+
+    @Test
+    public void inProcessDeliversOnlyToOtherSubscribedNodes() {
+        var hub = new InProcessGameEventBus.Hub();
+        var first = new InProcessGameEventBus(hub);
+        var second = new InProcessGameEventBus(hub);
+        var third = new InProcessGameEventBus(hub);
+        var firstReceived = listen(first);
+        var secondReceived = listen(second);
+        var thirdReceived = listen(third);
+        first.subscribe(1);
+        second.subscribe(1);
+        third.subscribe(2);
+
+        first.publish(event(first, 1, 1, "hello"));
+
+        Assertions.assertTrue(firstReceived.isEmpty(), "Publisher should not hear its own event");
+        Assertions.assertEquals(1, secondReceived.size());
+        Assertions.assertTrue(thirdReceived.isEmpty(), "Node not watching the game should not receive it");
+
+        second.unsubscribe(1);
+        first.publish(event(first, 1, 2, "again"));
+        Assertions.assertEquals(1, secondReceived.size());
+    }
+
+    @Test
+    public void nodesBroadcastingTheSameGameDoNotDeadlock() {
+        var hub = new InProcessGameEventBus.Hub();
+        var firstBus = new InProcessGameEventBus(hub);
+        var secondBus = new InProcessGameEventBus(hub);
+        var first = new ConnectionManager(firstBus);
+        var second = new ConnectionManager(secondBus);
+        firstBus.subscribe(1);
+        secondBus.subscribe(1);
+
+        Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            Thread other = new Thread(() -> broadcastMany(second));
+            other.start();
+            broadcastMany(first);
+            other.join();
+        });
+    }
+
+    @Test
+    public void commandsForAMissingNodeComeBackAsErrors() throws Exception {
+        var hub = new InProcessGameEventBus.Hub();
+        var inProcess = new InProcessGameEventBus(hub);
+        var bounced = new LinkedBlockingQueue<NodeMessage>();
+        inProcess.setDirectListener(bounced::add);
+        var command = new NodeMessage(inProcess.nodeId(), "gone", NodeMessage.Kind.COMMAND, "session", 4, "{}");
+
+        inProcess.send(command);
+        Assertions.assertEquals(command.undeliverable(), bounced.poll());
+        inProcess.send(new NodeMessage(inProcess.nodeId(), "gone", NodeMessage.Kind.ERROR, "session", 4, "nope"));
+        Assertions.assertTrue(bounced.isEmpty(), "Only commands are bounced");
+
+        try (var broker = new GameEventBroker(0);
+             var socket = new SocketGameEventBus("localhost", broker.getPort())) {
+            socket.setDirectListener(bounced::add);
+            Thread.sleep(200);
+            var forwarded = new NodeMessage(socket.nodeId(), "gone", NodeMessage.Kind.COMMAND, "session", 4, "{}");
+
+            socket.send(forwarded);
+
+            NodeMessage reply = bounced.poll(5, TimeUnit.SECONDS);
+            Assertions.assertEquals(forwarded.undeliverable(), reply);
+            Assertions.assertEquals(NodeMessage.UNDELIVERABLE, reply.payload());
+        }
+    }
+
+    @Test
+    public void slowClientDoesNotHoldUpOtherNodesMessages() throws Exception {
+        var hub = new InProcessGameEventBus.Hub();
+        var firstBus = new InProcessGameEventBus(hub);
+        var secondBus = new InProcessGameEventBus(hub);
+        var first = new ConnectionManager(firstBus);
+        var second = new ConnectionManager(secondBus);
+        var stuck = new CountDownLatch(1);
+        var delivered = new LinkedBlockingQueue<String>();
+        second.add("slow", 1, session(message -> stuck.await()));
+        second.add("fast", 2, session(delivered::add));
+        firstBus.subscribe(1);
+        firstBus.subscribe(2);
+        try {
+            // The in-process bus hands other nodes' messages over on the publishing thread
+            Assertions.assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                first.broadcast(1, null, new NotificationMessage(ServerMessage.ServerMessageType.NOTIFICATION, "a"));
+                first.broadcast(1, null, new NotificationMessage(ServerMessage.ServerMessageType.NOTIFICATION, "b"));
+                first.broadcast(2, null, new NotificationMessage(ServerMessage.ServerMessageType.NOTIFICATION, "c"));
+            });
+            String received = delivered.poll(5, TimeUnit.SECONDS);
+            Assertions.assertNotNull(received, "A stuck client in one game held up another game");
+            Assertions.assertTrue(received.contains("\"c\""));
+        } finally {
+            stuck.countDown();
+            first.close();
+            second.close();
+        }
+    }
+
+    private interface Receiver {
+        void receive(String message) throws InterruptedException;
+    }
+
+    // An open session whose text messages go to the receiver
+    private static Session session(Receiver receiver) {
+        UpgradeRequest request = proxy(UpgradeRequest.class, (method, args) ->
+                method.getName().equals("getParameterMap") ? Map.of() : null);
+        RemoteEndpoint remote = proxy(RemoteEndpoint.class, (method, args) -> {
+            if (method.getName().equals("sendString")) {
+                receiver.receive((String) args[0]);
+            }
+            return null;
+        });
+        return proxy(Session.class, (method, args) -> switch (method.getName()) {
+            case "isOpen" -> true;
+            case "getRemote" -> remote;
+            case "getUpgradeRequest" -> request;
+            default -> null;
+        });
+    }
+
+    private interface Handler {
+        Object handle(Method method, Object[] args) throws Throwable;
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (self, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(self);
+                    case "equals" -> self == args[0];
+                    default -> type.getSimpleName();
+                };
+            }
+            return handler.handle(method, args);
+        }));
+    }
+
+    private static void broadcastMany(ConnectionManager manager) {
+        for (int i = 0; i < 2000; i++) {
+            try {
+                manager.broadcast(1, null, new NotificationMessage(ServerMessage.ServerMessageType.NOTIFICATION, "m" + i));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Test
+    public void socketBusForwardsThroughBroker() throws Exception {
+        try (var broker = new GameEventBroker(0);
+             var first = new SocketGameEventBus("localhost", broker.getPort());
+             var second = new SocketGameEventBus("localhost", broker.getPort());
+             var third = new SocketGameEventBus("localhost", broker.getPort())) {
+            var firstReceived = listen(first);
+            var secondReceived = listen(second);
+            var thirdReceived = listen(third);
+            first.subscribe(1);
+            second.subscribe(1);
+            third.subscribe(2);
+            // Subscriptions travel over their own sockets; let the broker register them
+            Thread.sleep(200);
+
+            first.publish(event(first, 1, 1, "hello"));
+            GameEvent received = secondReceived.poll(5, TimeUnit.SECONDS);
+
+            Assertions.assertNotNull(received);
+            Assertions.assertEquals(first.nodeId(), received.origin());
+            Assertions.assertEquals("hello", ((NotificationMessage) received.message()).getContent());
+            Assertions.assertNull(thirdReceived.poll(200, TimeUnit.MILLISECONDS));
+            Assertions.assertTrue(firstReceived.isEmpty());
+        }
+    }
+
+    @Test
+    public void directMessagesReachOnlyTheirTarget() throws Exception {
+        try (var broker = new GameEventBroker(0);
+             var first = new SocketGameEventBus("localhost", broker.getPort());
+             var second = new SocketGameEventBus("localhost", broker.getPort());
+             var third = new SocketGameEventBus("localhost", broker.getPort())) {
+            var secondReceived = new LinkedBlockingQueue<NodeMessage>();
+            var thirdReceived = new LinkedBlockingQueue<NodeMessage>();
+            second.setDirectListener(secondReceived::add);
+            third.setDirectListener(thirdReceived::add);
+            Thread.sleep(200);
+
+            var command = new NodeMessage(first.nodeId(), second.nodeId(), NodeMessage.Kind.COMMAND, "session", 4, "{}");
+            first.send(command);
+
+            Assertions.assertEquals(command, secondReceived.poll(5, TimeUnit.SECONDS));
+            Assertions.assertNull(thirdReceived.poll(200, TimeUnit.MILLISECONDS));
+            NodeMessage reply = command.reply(NodeMessage.Kind.ERROR, "nope");
+            Assertions.assertEquals(first.nodeId(), reply.target());
+            Assertions.assertEquals("session", reply.sessionKey());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package server.bus;
+
+import dataaccess.MemoryLeaseDAO;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class GameOwnershipTest {
+    private static final long LEASE = 9_000;
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private GameOwnership first;
+    private GameOwnership second;
+
+    @BeforeEach
+    public void setUp() {
+        var leases = new MemoryLeaseDAO();
+        first = new GameOwnership(leases, "first", LEASE, clock::get);
+        second = new GameOwnership(leases, "second", LEASE, clock::get);
+    }
+
+    @Test
+    public void firstNodeToAskOwnsTheGame() throws Exception {
+        Assertions.assertTrue(first.isLocal(1));
+        Assertions.assertEquals("first", second.ownerOf(1));
+        Assertions.assertFalse(second.isLocal(1));
+        Assertions.assertTrue(second.isLocal(2));
+    }
+
+    @Test
+    public void expiredLeaseFailsOver() throws Exception {
+        first.ownerOf(1);
+        second.ownerOf(1);
+
+        // The first node dies and stops renewing
+        clock.addAndGet(LEASE);
+        Assertions.assertEquals("second", second.ownerOf(1));
+    }
+
+    @Test
+    public void renewalKeepsOwnership() throws Exception {
+        first.ownerOf(1);
+        for (int i = 0; i < 5; i++) {
+            clock.addAndGet(LEASE / 3);
+            first.renew();
+        }
+        Assertions.assertEquals("first", second.ownerOf(1));
+    }
+
+    @Test
+    public void idleAndClosedLeasesAreReleased() throws Exception {
+        first.ownerOf(1);
+        first.ownerOf(2);
+        clock.addAndGet(GameOwnership.IDLE_RELEASE_MILLIS - LEASE / 3);
+        first.ownerOf(2);
+        clock.addAndGet(LEASE / 3);
+        first.renew();
+        Assertions.assertEquals("second", second.ownerOf(1));
+
+        first.close();
+        Assertions.assertEquals("second", second.ownerOf(2));
+    }
+}
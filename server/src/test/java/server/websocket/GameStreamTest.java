@@ -0,0 +1,89 @@
+package server.websocket;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.*;
+import websocket.messages.NotificationMessage;
+import websocket.messages.ServerMessage;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+public class GameStreamTest {
+
+    private GameStream stream;
+
+    @BeforeEach
+    public void setup() {
+        stream = new GameStream(4);
+    }
+
+    private void append(String excludedUsername, String content) {
+        var message = new NotificationMessage(ServerMessage.ServerMessageType.NOTIFICATION, content);
+        stream.record(stream.next(), excludedUsername, new OutboundMessage(message));
+    }
+
+    private List<String> since(long sequence, String username) {
+        List<OutboundMessage> missed = stream.since(sequence, username);
+        if (missed == null) {
+            return null;
+        }
+        return missed.stream()
+                .map(outbound -> new Gson().fromJson(outbound.json(), NotificationMessage.class).getContent())
+                .toList();
+    }
+
+    @Test
+    public void testReplayMissedMessages() {
+        append(null, "a");
+        append(null, "b");
+        append(null, "c");
+
+        assertEquals(List.of("b", "c"), since(1, "pp"));
+        assertEquals(List.of(), since(3, "pp"), "an up to date client misses nothing");
+    }
+
+    @Test
+    public void testReplaySkipsMessagesExcludedForUser() {
+        append("pp", "pp joined");
+        append(null, "board");
+
+        assertEquals(List.of("board"), since(0, "pp"));
+        assertEquals(List.of("pp joined", "board"), since(0, "qq"));
+    }
+
+    @Test
+    public void testTooFarBehindReturnsNull() {
+        for (int i = 0; i < 6; i++) {
+            append(null, "m" + i);
+        }
+        assertNull(since(1, "pp"), "evicted messages cannot be replayed");
+        assertEquals(List.of("m2", "m3", "m4", "m5"), since(2, "pp"));
+    }
+
+    @Test
+    public void testSequenceFromAnotherRunReturnsNull() {
+        append(null, "a");
+        assertNull(since(10, "pp"));
+    }
+
+    @Test
+    public void testFloorAppliesOnlyToOwnNumbers() {
+        var floored = new GameStream(4, 1000);
+        floored.advanceTo(7);
+        assertEquals(7, floored.lastSequence(), "numbers from other nodes are taken as they are");
+        assertEquals(1001, floored.next());
+    }
+
+    @Test
+    public void testIdleStreamsExpire() throws Exception {
+        var manager = new ConnectionManager();
+        manager.broadcast(5, null, new NotificationMessage(ServerMessage.ServerMessageType.NOTIFICATION, "m"));
+        assertEquals(1, manager.streamCount());
+
+        manager.expireIdleStreams(System.currentTimeMillis());
+        assertEquals(1, manager.streamCount(), "recently active streams are kept");
+
+        manager.expireIdleStreams(System.currentTimeMillis() + ConnectionManager.STREAM_IDLE_MILLIS);
+        assertEquals(0, manager.streamCount());
+    }
+}
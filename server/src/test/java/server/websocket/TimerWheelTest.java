@@ -0,0 +1,50 @@
+package server.websocket;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+public class TimerWheelTest {
+
+    private TimerWheel<String> wheel;
+
+    @BeforeEach
+    public void setup() {
+        wheel = new TimerWheel<>(10, 8, 0);
+    }
+
+    @Test
+    public void testItemDueAfterDeadline() {
+        wheel.schedule("a", 35);
+
+        assertEquals(List.of(), wheel.advance(30));
+        assertEquals(List.of("a"), wheel.advance(40));
+        assertEquals(List.of(), wheel.advance(50), "an item fires only once");
+    }
+
+    @Test
+    public void testItemBeyondOneTurnWaitsForLaterTurn() {
+        wheel.schedule("far", 250);
+
+        assertEquals(List.of(), wheel.advance(100));
+        assertEquals(List.of(), wheel.advance(200));
+        assertEquals(List.of("far"), wheel.advance(260));
+    }
+
+    @Test
+    public void testLongPauseSweepsEveryBucket() {
+        wheel.schedule("a", 15);
+        wheel.schedule("b", 65);
+
+        assertEquals(List.of("a", "b"), wheel.advance(1_000));
+    }
+
+    @Test
+    public void testPastDeadlineFiresOnNextTick() {
+        wheel.advance(100);
+        wheel.schedule("late", 50);
+
+        assertEquals(List.of("late"), wheel.advance(110));
+    }
+}
@@ -0,0 +1,103 @@
+package service;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import dataaccess.*;
+import model.GameData;
+import model.GameHistoryEvent.*;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GameHistoryTest {
+    private MemoryGameEventDAO eventDAO;
+    private GameHistory history;
+
+    @BeforeEach
+    void setUp() {
+        eventDAO = new MemoryGameEventDAO();
+        history = new GameHistory(eventDAO, 3);
+    }
+
+    private static ChessMove move(String from, String to) {
+        return new ChessMove(new ChessPosition(from.charAt(1) - '0', from.charAt(0) - 'a' + 1),
+                new ChessPosition(to.charAt(1) - '0', to.charAt(0) - 'a' + 1), null);
+    }
+
+    // Fool's mate: black mates on the fourth half-move
+    private void playFoolsMate(int gameID) throws DataAccessException {
+        history.record(gameID, new GameCreated("Fool's mate"));
+        history.record(gameID, new SeatClaimed(ChessGame.TeamColor.WHITE, "white"));
+        history.record(gameID, new SeatClaimed(ChessGame.TeamColor.BLACK, "black"));
+        history.record(gameID, new MoveMade("white", move("f2", "f3")));
+        history.record(gameID, new MoveMade("black", move("e7", "e5")));
+        history.record(gameID, new MoveMade("white", move("g2", "g4")));
+        history.record(gameID, new MoveMade("black", move("d8", "h4")));
+    }
+
+    @Test
+    void rebuildReplaysOnlyEventsSinceSnapshot() throws DataAccessException {
+        playFoolsMate(1);
+        var replayed = new AtomicInteger();
+        var counting = new GameHistory(new MemoryGameEventDAO() {
+            @Override
+            public synchronized List<LoggedEvent> readGame(int gameID, long afterSequence) {
+                var events = eventDAO.readGame(gameID, afterSequence);
+                replayed.addAndGet(events.size());
+                return events;
+            }
+
+            @Override
+            public synchronized GameSnapshot latestSnapshot(int gameID) {
+                return eventDAO.latestSnapshot(gameID);
+            }
+        }, 3);
+
+        GameData game = counting.rebuild(1);
+
+        assertEquals(1, replayed.get(), "seven events with a snapshot every three leave one to replay");
+        assertEquals("white", game.whiteUsername());
+        assertEquals("black", game.blackUsername());
+        assertTrue(game.game().isGameOver(), "checkmate ends the game");
+        assertEquals(7, history.events(1).size());
+    }
+
+    @Test
+    void appendAfterStaleSequenceIsRejected() throws DataAccessException {
+        history.record(2, new GameCreated("Race"));
+        assertFalse(eventDAO.append(2, 0, List.of(new Resigned("late"))));
+        assertNull(history.rebuild(3), "games without history rebuild to nothing");
+    }
+
+    @Test
+    void logWithoutCreationRebuildsToNothing() throws DataAccessException {
+        // A game from before history was kept: its log starts partway through
+        history.record(4, new SeatClaimed(ChessGame.TeamColor.WHITE, "white"));
+        history.record(4, new MoveMade("white", move("e2", "e4")));
+        history.record(4, new Resigned("white"));
+
+        assertNull(history.rebuild(4));
+        assertNull(eventDAO.latestSnapshot(4), "no snapshot without a game to snapshot");
+        assertEquals(3, history.events(4).size());
+    }
+
+    @Test
+    void playerStatsFollowTheLog() throws DataAccessException {
+        playFoolsMate(1);
+        history.record(2, new GameCreated("Resigned"));
+        history.record(2, new SeatClaimed(ChessGame.TeamColor.WHITE, "white"));
+        history.record(2, new SeatClaimed(ChessGame.TeamColor.BLACK, "black"));
+        history.record(2, new Resigned("black"));
+
+        var stats = new PlayerStats();
+        long position = history.feed(0, stats::accept);
+        assertEquals(position, stats.position());
+
+        assertEquals(new PlayerStats.Record(1, 1, 0), stats.recordOf("white"));
+        assertEquals(new PlayerStats.Record(1, 1, 0), stats.recordOf("black"));
+        assertEquals(position, history.feed(position, stats::accept), "nothing new to feed");
+    }
+}
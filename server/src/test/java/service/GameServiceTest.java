@@ -1,5 +1,6 @@
 package service;
 
+import chess.ChessGame;
 import dataaccess.*;
 import model.*;
 import org.junit.jupiter.api.*;
@@ -131,4 +132,85 @@ public class GameServiceTest {
         List<GameData> games = gameService.listGames(testAuth.authToken());
         assertTrue(games.isEmpty(), "After clearing, the game list should be null");
     }
-}
\ No newline at end of file
+    @Test
+    void testListTagChangesOnlyOnWrite() throws DataAccessException {
+        int gameID = gameService.createGame(testAuth.authToken(),"Test Game");
+        String listTag = gameService.listTag(testAuth.authToken());
+        String gameTag = gameService.gameTag(gameService.getGame(testAuth.authToken(), gameID));
+
+        gameService.listGames(testAuth.authToken());
+        assertEquals(listTag, gameService.listTag(testAuth.authToken()), "Reads should not change the tag");
+
+        gameService.joinGame(testAuth.authToken(), gameID, "WHITE");
+        assertNotEquals(listTag, gameService.listTag(testAuth.authToken()), "Joining should change the list tag");
+        assertNotEquals(gameTag, gameService.gameTag(gameService.getGame(testAuth.authToken(), gameID)), "Joining should change the game tag");
+    }
+    @Test
+    void testTagsSeeWritesFromOtherNodes() throws DataAccessException {
+        var otherNode = new GameService(gameDAO, authDAO);
+        int gameID = gameService.createGame(testAuth.authToken(), "Test Game");
+        String listTag = gameService.listTag(testAuth.authToken());
+        String gameTag = gameService.gameTag(gameService.getGame(testAuth.authToken(), gameID));
+
+        otherNode.joinGame(testAuth.authToken(), gameID, "WHITE");
+
+        assertNotEquals(listTag, gameService.listTag(testAuth.authToken()));
+        assertNotEquals(gameTag, gameService.gameTag(gameService.getGame(testAuth.authToken(), gameID)));
+    }
+    @Test
+    void testListTagMatchesTheGamesRead() throws DataAccessException {
+        int gameID = gameService.createGame(testAuth.authToken(), "Test Game");
+        gameService.createGame(testAuth.authToken(), "Other Game");
+        gameService.joinGame(testAuth.authToken(), gameID, "WHITE");
+
+        assertEquals(gameService.listTag(testAuth.authToken()),
+                gameService.listTag(gameService.listGames(testAuth.authToken())));
+    }
+    @Test
+    void testTagsDifferBetweenStoreLifetimes() throws DataAccessException {
+        // A fresh in-memory store hands out the same IDs and versions again
+        var restarted = new GameService(new MemoryGameDAO(), authDAO);
+        int gameID = gameService.createGame(testAuth.authToken(), "Test Game");
+        restarted.createGame(testAuth.authToken(), "Test Game");
+
+        assertNotEquals(gameService.listTag(testAuth.authToken()), restarted.listTag(testAuth.authToken()));
+        assertNotEquals(gameService.gameTag(gameService.getGame(testAuth.authToken(), gameID)),
+                restarted.gameTag(restarted.getGame(testAuth.authToken(), gameID)));
+    }
+    @Test
+    void testGameTagUnaffectedByOtherGames() throws DataAccessException {
+        int gameID1 = gameService.createGame(testAuth.authToken(),"Test Game");
+        String gameTag = gameService.gameTag(gameService.getGame(testAuth.authToken(), gameID1));
+
+        int gameID2 = gameService.createGame(testAuth.authToken(),"Test Game");
+        gameService.joinGame(testAuth.authToken(), gameID2, "BLACK");
+
+        assertEquals(gameTag, gameService.gameTag(gameService.getGame(testAuth.authToken(), gameID1)));
+    }
+    @Test
+    void testJoinGameKeepsOtherSeat() throws DataAccessException {
+        int gameID = gameService.createGame(testAuth.authToken(),"Test Game");
+        // Another user takes BLACK straight through the DAO, e.g. on another node
+        assertTrue(gameDAO.claimSeat(gameID, ChessGame.TeamColor.BLACK, "other"));
+
+        gameService.joinGame(testAuth.authToken(), gameID, "WHITE");
+
+        GameData game = gameDAO.getGame(gameID);
+        assertEquals(testUser.username(), game.whiteUsername());
+        assertEquals("other", game.blackUsername(), "Claiming a seat must not overwrite the other one");
+        assertEquals(2, game.version());
+    }
+    @Test
+    void testClaimSeatOnlyOnce() throws DataAccessException {
+        int gameID = gameService.createGame(testAuth.authToken(),"Test Game");
+
+        assertTrue(gameDAO.claimSeat(gameID, ChessGame.TeamColor.WHITE, "other"));
+        assertFalse(gameDAO.claimSeat(gameID, ChessGame.TeamColor.WHITE, testUser.username()));
+        assertFalse(gameDAO.claimSeat(999, ChessGame.TeamColor.WHITE, testUser.username()));
+
+        DataAccessException exception = assertThrows(DataAccessException.class,
+                () -> gameService.joinGame(testAuth.authToken(), gameID, "white"));
+        assertEquals("Forbidden: WHITE spot is already taken", exception.getMessage());
+        assertEquals("other", gameDAO.getGame(gameID).whiteUsername());
+    }
+}
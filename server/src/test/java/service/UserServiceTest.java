@@ -71,6 +71,32 @@ public class UserServiceTest {
         assertNull(retrievedAuth);
     }
 
+    @Test
+    void testLogoutAllSessions() throws DataAccessException {
+        AuthData first = userService.createUser(user);
+        AuthData second = userService.loginUser(new UserData("pp", "123456", null));
+        userService.createUser(new UserData("other", "pw", "o@gmail.com"));
+        AuthData other = userService.loginUser(new UserData("other", "pw", null));
+
+        userService.logoutAllSessions(first.authToken());
+
+        assertNull(authDAO.getAuth(first.authToken()));
+        assertNull(authDAO.getAuth(second.authToken()));
+        assertNotNull(authDAO.getAuth(other.authToken()), "other users keep their sessions");
+    }
+
+    @Test
+    void testExpiredTokenRejected() throws DataAccessException {
+        AuthData auth = userService.createUser(user);
+        assertTrue(auth.expiresAt() > System.currentTimeMillis());
+
+        authDAO.createAuth(new AuthData("old", "pp", System.currentTimeMillis() - 1));
+
+        assertNull(authDAO.getAuth("old"));
+        DataAccessException exception = assertThrows(DataAccessException.class, () -> userService.logoutUser("old"));
+        assertEquals("Error: Invalid auth token", exception.getMessage());
+    }
+
 
     @Test
     void testClearData() throws DataAccessException {
@@ -15,6 +15,17 @@ public class ChessBoard {
     public ChessBoard() {
     }
 
+    /**
+     * @return a board with the same pieces; pieces are immutable, so only the squares are copied
+     */
+    public ChessBoard copy() {
+        var copy = new ChessBoard();
+        for (int row = 0; row < squares.length; row++) {
+            System.arraycopy(squares[row], 0, copy.squares[row], 0, squares[row].length);
+        }
+        return copy;
+    }
+
     /**
      * Adds a chess piece to the chessboard
      *
@@ -22,6 +22,19 @@ public class ChessGame {
         this.board.resetBoard();
     }
 
+    private ChessGame(ChessBoard board, TeamColor turn, boolean gameOver) {
+        this.board = board;
+        this.turn = turn;
+        this.gameOver = gameOver;
+    }
+
+    /**
+     * @return an independent copy of this game, so moves made on one don't affect the other
+     */
+    public ChessGame copy() {
+        return new ChessGame(board == null ? null : board.copy(), turn, gameOver);
+    }
+
     /**
      * @return Which team's turn it is
      */
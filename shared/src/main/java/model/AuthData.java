@@ -1,3 +1,15 @@
 package model;
 
-public record AuthData(String authToken, String username) {}
+/**
+ * @param expiresAt epoch millis after which the token is no longer accepted, or 0 if it
+ *                  never expires
+ */
+public record AuthData(String authToken, String username, long expiresAt) {
+    public AuthData(String authToken, String username) {
+        this(authToken, username, 0);
+    }
+
+    public boolean isExpired(long now) {
+        return expiresAt > 0 && expiresAt <= now;
+    }
+}
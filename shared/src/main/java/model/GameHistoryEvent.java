@@ -0,0 +1,92 @@
+package model;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import com.google.gson.Gson;
+
+/**
+ * One change in a game's life. A game's events, applied in order to an empty game, rebuild
+ * exactly the game the server holds, so they double as its move history.
+ */
+public sealed interface GameHistoryEvent {
+    Gson GSON = new Gson();
+
+    /**
+     * Returns the game after this event. {@code game} is null before the game is created and
+     * is changed in place otherwise.
+     */
+    GameData applyTo(int gameID, GameData game);
+
+    default String type() {
+        return getClass().getSimpleName();
+    }
+
+    default String toJson() {
+        return GSON.toJson(this);
+    }
+
+    static GameHistoryEvent fromJson(String type, String json) {
+        return switch (type) {
+            case "GameCreated" -> GSON.fromJson(json, GameCreated.class);
+            case "SeatClaimed" -> GSON.fromJson(json, SeatClaimed.class);
+            case "MoveMade" -> GSON.fromJson(json, MoveMade.class);
+            case "Resigned" -> GSON.fromJson(json, Resigned.class);
+            case "Left" -> GSON.fromJson(json, Left.class);
+            default -> throw new IllegalArgumentException("Unknown game event type: " + type);
+        };
+    }
+
+    record GameCreated(String gameName) implements GameHistoryEvent {
+        @Override
+        public GameData applyTo(int gameID, GameData game) {
+            return new GameData(gameID, null, null, gameName, new ChessGame());
+        }
+    }
+
+    record SeatClaimed(ChessGame.TeamColor color, String username) implements GameHistoryEvent {
+        @Override
+        public GameData applyTo(int gameID, GameData game) {
+            return color == ChessGame.TeamColor.WHITE
+                    ? new GameData(gameID, username, game.blackUsername(), game.gameName(), game.game())
+                    : new GameData(gameID, game.whiteUsername(), username, game.gameName(), game.game());
+        }
+    }
+
+    /**
+     * A move, along with the end of the game when it mates or stalemates the opponent.
+     */
+    record MoveMade(String username, ChessMove move) implements GameHistoryEvent {
+        @Override
+        public GameData applyTo(int gameID, GameData game) {
+            ChessGame chess = game.game();
+            try {
+                chess.makeMove(move);
+            } catch (InvalidMoveException e) {
+                throw new IllegalStateException("Game " + gameID + " history holds an illegal move: " + move, e);
+            }
+            ChessGame.TeamColor next = chess.getTeamTurn();
+            if (chess.isInCheckmate(next) || chess.isInStalemate(next)) {
+                chess.setGameOver();
+            }
+            return game;
+        }
+    }
+
+    record Resigned(String username) implements GameHistoryEvent {
+        @Override
+        public GameData applyTo(int gameID, GameData game) {
+            game.game().setGameOver();
+            return game;
+        }
+    }
+
+    record Left(String username) implements GameHistoryEvent {
+        @Override
+        public GameData applyTo(int gameID, GameData game) {
+            String white = username.equals(game.whiteUsername()) ? null : game.whiteUsername();
+            String black = username.equals(game.blackUsername()) ? null : game.blackUsername();
+            return new GameData(gameID, white, black, game.gameName(), game.game());
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package websocket;
+
+import chess.*;
+import websocket.commands.MakeMoveCommand;
+import websocket.commands.ResumeCommand;
+import websocket.commands.UserGameCommand;
+import websocket.messages.ErrorMessage;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.NotificationMessage;
+import websocket.messages.ServerMessage;
+
+import java.io.*;
+
+/**
+ * Compact binary encoding of the WebSocket protocol, used instead of JSON text frames when a
+ * client connects with {@code ?format=binary}. A board is packed into 32 bytes (one nibble per
+ * square), so a LOAD_GAME message is a few dozen bytes instead of several kilobytes of JSON.
+ */
+public final class BinaryProtocol {
+    public static final String FORMAT_PARAMETER = "format";
+    public static final String BINARY_FORMAT = "binary";
+
+    private static final int NONE = 0xFF;
+    private static final int BLACK_FLAG = 0x8;
+    private static final ChessPiece.PieceType[] PIECE_TYPES = ChessPiece.PieceType.values();
+
+    private BinaryProtocol() {
+    }
+
+    public static byte[] encode(ServerMessage message) {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(bytes)) {
+            out.writeByte(message.getServerMessageType().ordinal());
+            Long sequence = message.getSequence();
+            out.writeBoolean(sequence != null);
+            if (sequence != null) {
+                out.writeLong(sequence);
+            }
+            switch (message.getServerMessageType()) {
+                case LOAD_GAME -> writeGame(out, ((LoadGameMessage) message).getGame());
+                case ERROR -> writeString(out, ((ErrorMessage) message).getErrorMessage());
+                case NOTIFICATION -> writeString(out, ((NotificationMessage) message).getContent());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static ServerMessage decodeServerMessage(byte[] data, int offset, int length) {
+        try (var in = new DataInputStream(new ByteArrayInputStream(data, offset, length))) {
+            var type = ServerMessage.ServerMessageType.values()[in.readUnsignedByte()];
+            Long sequence = in.readBoolean() ? in.readLong() : null;
+            ServerMessage message = switch (type) {
+                case LOAD_GAME -> new LoadGameMessage(type, readGame(in));
+                case ERROR -> new ErrorMessage(type, readString(in));
+                case NOTIFICATION -> new NotificationMessage(type, readString(in));
+            };
+            message.setSequence(sequence);
+            return message;
+        } catch (IOException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Malformed binary server message", e);
+        }
+    }
+
+    public static byte[] encode(UserGameCommand command) {
+        var bytes = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(bytes)) {
+            out.writeByte(command.getCommandType().ordinal());
+            writeString(out, command.getAuthToken());
+            out.writeInt(command.getGameID() == null ? -1 : command.getGameID());
+            out.writeByte(command.getRole() == null ? NONE : command.getRole().ordinal());
+            writeString(out, command.getPlayerColor());
+            if (command instanceof MakeMoveCommand moveCommand) {
+                writeMove(out, moveCommand.getMove());
+            } else if (command instanceof ResumeCommand resumeCommand) {
+                out.writeLong(resumeCommand.getLastSequence());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static UserGameCommand decodeCommand(byte[] data, int offset, int length) {
+        try (var in = new DataInputStream(new ByteArrayInputStream(data, offset, length))) {
+            var type = UserGameCommand.CommandType.values()[in.readUnsignedByte()];
+            String authToken = readString(in);
+            int rawGameID = in.readInt();
+            Integer gameID = rawGameID < 0 ? null : rawGameID;
+            int rawRole = in.readUnsignedByte();
+            var role = rawRole == NONE ? null : UserGameCommand.Role.values()[rawRole];
+            String playerColor = readString(in);
+            return switch (type) {
+                case MAKE_MOVE -> new MakeMoveCommand(authToken, gameID, readMove(in));
+                case RESUME -> new ResumeCommand(authToken, gameID, in.readLong());
+                default -> new UserGameCommand(type, authToken, gameID, role, playerColor);
+            };
+        } catch (IOException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Malformed binary command", e);
+        }
+    }
+
+    /**
+     * Writes a game (or null) in the packed form used by LOAD_GAME messages.
+     */
+    public static void writeGame(DataOutputStream out, ChessGame game) throws IOException {
+        out.writeBoolean(game != null);
+        if (game == null) {
+            return;
+        }
+        out.writeByte(game.getTeamTurn() == null ? NONE : game.getTeamTurn().ordinal());
+        out.writeBoolean(game.isGameOver());
+        ChessBoard board = game.getBoard();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col += 2) {
+                int left = pieceCode(board.getPiece(new ChessPosition(row, col)));
+                int right = pieceCode(board.getPiece(new ChessPosition(row, col + 1)));
+                out.writeByte(left << 4 | right);
+            }
+        }
+    }
+
+    public static ChessGame readGame(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        var game = new ChessGame();
+        int turn = in.readUnsignedByte();
+        game.setTeamTurn(turn == NONE ? null : ChessGame.TeamColor.values()[turn]);
+        if (in.readBoolean()) {
+            game.setGameOver();
+        }
+        var board = new ChessBoard();
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col += 2) {
+                int packed = in.readUnsignedByte();
+                placePiece(board, row, col, packed >> 4);
+                placePiece(board, row, col + 1, packed & 0xF);
+            }
+        }
+        game.setBoard(board);
+        return game;
+    }
+
+    // 0 is an empty square; otherwise the piece type ordinal + 1, with bit 3 set for black
+    private static int pieceCode(ChessPiece piece) {
+        if (piece == null) {
+            return 0;
+        }
+        int code = piece.getPieceType().ordinal() + 1;
+        return piece.getTeamColor() == ChessGame.TeamColor.BLACK ? code | BLACK_FLAG : code;
+    }
+
+    private static void placePiece(ChessBoard board, int row, int col, int code) {
+        if (code == 0) {
+            return;
+        }
+        var color = (code & BLACK_FLAG) != 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        board.addPiece(new ChessPosition(row, col), new ChessPiece(color, PIECE_TYPES[(code & ~BLACK_FLAG) - 1]));
+    }
+
+    private static void writeMove(DataOutputStream out, ChessMove move) throws IOException {
+        out.writeBoolean(move != null);
+        if (move == null) {
+            return;
+        }
+        out.writeByte(move.getStartPosition().getRow());
+        out.writeByte(move.getStartPosition().getColumn());
+        out.writeByte(move.getEndPosition().getRow());
+        out.writeByte(move.getEndPosition().getColumn());
+        out.writeByte(move.getPromotionPiece() == null ? NONE : move.getPromotionPiece().ordinal());
+    }
+
+    private static ChessMove readMove(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        var start = new ChessPosition(in.readUnsignedByte(), in.readUnsignedByte());
+        var end = new ChessPosition(in.readUnsignedByte(), in.readUnsignedByte());
+        int promotion = in.readUnsignedByte();
+        return new ChessMove(start, end, promotion == NONE ? null : PIECE_TYPES[promotion]);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
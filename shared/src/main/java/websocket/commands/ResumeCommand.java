@@ -0,0 +1,14 @@
+package websocket.commands;
+
+public class ResumeCommand extends UserGameCommand {
+    private final long lastSequence;
+
+    public ResumeCommand(String authToken, Integer gameID, long lastSequence) {
+        super(CommandType.RESUME, authToken, gameID);
+        this.lastSequence = lastSequence;
+    }
+
+    public long getLastSequence() {
+        return lastSequence;
+    }
+}
@@ -10,6 +10,7 @@ import java.util.Objects;
  */
 public class ServerMessage {
     ServerMessageType serverMessageType;
+    Long sequence;
 
     public enum ServerMessageType {
         LOAD_GAME,
@@ -25,6 +26,18 @@ public class ServerMessage {
         return this.serverMessageType;
     }
 
+    /**
+     * Position of this message in its game's stream, or null for messages that are not
+     * part of a stream (errors). Clients send the last one they saw in a RESUME command.
+     */
+    public Long getSequence() {
+        return this.sequence;
+    }
+
+    public void setSequence(Long sequence) {
+        this.sequence = sequence;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
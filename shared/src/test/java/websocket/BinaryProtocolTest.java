@@ -0,0 +1,65 @@
+package websocket;
+
+import chess.*;
+import org.junit.jupiter.api.*;
+import websocket.commands.MakeMoveCommand;
+import websocket.commands.ResumeCommand;
+import websocket.commands.UserGameCommand;
+import websocket.messages.ErrorMessage;
+import websocket.messages.LoadGameMessage;
+import websocket.messages.NotificationMessage;
+import websocket.messages.ServerMessage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryProtocolTest {
+
+    @Test
+    public void testLoadGameRoundTrip() throws InvalidMoveException {
+        var game = new ChessGame();
+        game.makeMove(new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null));
+        var message = new LoadGameMessage(ServerMessage.ServerMessageType.LOAD_GAME, game);
+        message.setSequence(42L);
+
+        byte[] encoded = BinaryProtocol.encode(message);
+        var decoded = (LoadGameMessage) BinaryProtocol.decodeServerMessage(encoded, 0, encoded.length);
+
+        assertEquals(game, decoded.getGame());
+        assertEquals(ChessGame.TeamColor.BLACK, decoded.getGame().getTeamTurn());
+        assertEquals(42L, decoded.getSequence());
+        assertTrue(encoded.length < 64, "a board should pack into a few dozen bytes");
+    }
+
+    @Test
+    public void testTextMessagesRoundTrip() {
+        var notification = new NotificationMessage(ServerMessage.ServerMessageType.NOTIFICATION, "pp moved");
+        byte[] encoded = BinaryProtocol.encode(notification);
+        var decoded = (NotificationMessage) BinaryProtocol.decodeServerMessage(encoded, 0, encoded.length);
+        assertEquals("pp moved", decoded.getContent());
+        assertNull(decoded.getSequence());
+
+        var error = new ErrorMessage(ServerMessage.ServerMessageType.ERROR, "Error: bad");
+        encoded = BinaryProtocol.encode(error);
+        assertEquals("Error: bad", ((ErrorMessage) BinaryProtocol.decodeServerMessage(encoded, 0, encoded.length)).getErrorMessage());
+    }
+
+    @Test
+    public void testCommandsRoundTrip() {
+        var connect = new UserGameCommand(UserGameCommand.CommandType.CONNECT, "token", 7,
+                UserGameCommand.Role.PLAYER, "WHITE");
+        byte[] encoded = BinaryProtocol.encode(connect);
+        assertEquals(connect, BinaryProtocol.decodeCommand(encoded, 0, encoded.length));
+
+        var move = new ChessMove(new ChessPosition(7, 1), new ChessPosition(8, 1), ChessPiece.PieceType.QUEEN);
+        encoded = BinaryProtocol.encode(new MakeMoveCommand("token", 7, move));
+        assertEquals(move, ((MakeMoveCommand) BinaryProtocol.decodeCommand(encoded, 0, encoded.length)).getMove());
+
+        encoded = BinaryProtocol.encode(new ResumeCommand("token", 7, 99));
+        assertEquals(99, ((ResumeCommand) BinaryProtocol.decodeCommand(encoded, 0, encoded.length)).getLastSequence());
+    }
+
+    @Test
+    public void testMalformedInputRejected() {
+        assertThrows(IllegalArgumentException.class, () -> BinaryProtocol.decodeCommand(new byte[]{9}, 0, 1));
+    }
+}